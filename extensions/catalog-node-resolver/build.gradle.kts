@@ -19,9 +19,21 @@ plugins {
 dependencies {
     implementation(libs.edc.spi.identity.did)
     implementation(libs.edc.fc.spi.crawler)
+    implementation(libs.edc.fc.spi)
+    implementation(libs.edc.spi.catalog)
+    implementation(libs.edc.lib.store)
+    implementation(libs.edc.spi.web)
+    implementation(libs.edc.spi.jsonld)
+    implementation(libs.edc.spi.transform)
+    implementation(libs.jakarta.json.api)
+    implementation(libs.jakarta.annotation.api)
     runtimeOnly(libs.edc.fc.core)
     // todo: use 2025 once it is used everywhere
     // runtimeOnly(libs.edc.fc.core2025)
     runtimeOnly(libs.edc.fc.core08)
     runtimeOnly(libs.edc.fc.api)
+
+    testImplementation(libs.edc.junit)
+    // a JAX-RS runtime, to build responses in the filter tests
+    testRuntimeOnly(libs.edc.core.jersey)
 }
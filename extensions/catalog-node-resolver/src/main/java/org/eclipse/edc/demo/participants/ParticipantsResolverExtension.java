@@ -14,9 +14,14 @@
 
 package org.eclipse.edc.demo.participants;
 
+import org.eclipse.edc.crawler.spi.CrawlerActionRegistry;
 import org.eclipse.edc.crawler.spi.TargetNodeDirectory;
 import org.eclipse.edc.crawler.spi.TargetNodeFilter;
+import org.eclipse.edc.demo.participants.health.HealthAwareNodeDirectory;
+import org.eclipse.edc.demo.participants.health.HealthRecordingCrawlerAction;
+import org.eclipse.edc.demo.participants.health.NodeHealthTracker;
 import org.eclipse.edc.demo.participants.resolver.LazyLoadNodeDirectory;
+import org.eclipse.edc.demo.participants.resolver.TargetNodeStore;
 import org.eclipse.edc.iam.did.spi.resolution.DidResolverRegistry;
 import org.eclipse.edc.runtime.metamodel.annotation.Extension;
 import org.eclipse.edc.runtime.metamodel.annotation.Inject;
@@ -27,6 +32,13 @@ import org.eclipse.edc.spi.system.ServiceExtensionContext;
 import org.eclipse.edc.spi.types.TypeManager;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.eclipse.edc.demo.participants.ParticipantsResolverExtension.NAME;
 
@@ -35,6 +47,13 @@ public class ParticipantsResolverExtension implements ServiceExtension {
     public static final String NAME = "MVD Participant Resolver Extension";
 
     public static final String PARTICIPANT_LIST_FILE_PATH = "edc.mvd.participants.list.file";
+    public static final String RESOLUTION_PARALLELISM = "edc.mvd.participants.resolution.parallelism";
+    public static final String RESOLUTION_TIMEOUT_SECONDS = "edc.mvd.participants.resolution.timeout";
+    public static final String REFRESH_INTERVAL_SECONDS = "edc.mvd.participants.refresh.interval";
+    public static final String NODE_STORE_FILE_PATH = "edc.mvd.participants.store.file";
+    public static final String HEALTH_BACKOFF_SECONDS = "edc.mvd.participants.health.backoff";
+    public static final String HEALTH_MAX_BACKOFF_SECONDS = "edc.mvd.participants.health.backoff.max";
+    public static final String HEALTH_LOG_INTERVAL_SECONDS = "edc.mvd.participants.health.log.interval";
 
     @Inject
     private TypeManager typeManager;
@@ -43,8 +62,16 @@ public class ParticipantsResolverExtension implements ServiceExtension {
     private DidResolverRegistry didResolverRegistry;
 
     private File participantListFile;
+    private int resolutionParallelism;
+    private Duration resolutionTimeout;
+    private Duration refreshInterval;
+    private Path nodeStoreFile;
     private Monitor monitor;
-    private TargetNodeDirectory nodeDirectory;
+    private LazyLoadNodeDirectory nodeDirectory;
+    private NodeHealthTracker healthTracker;
+    private long healthLogIntervalSeconds;
+    private ScheduledExecutorService healthLogger;
+    private ServiceExtensionContext context;
 
     @Override
     public String name() {
@@ -53,19 +80,78 @@ public class ParticipantsResolverExtension implements ServiceExtension {
 
     @Override
     public void initialize(ServiceExtensionContext context) {
+        this.context = context;
         var participantsPath = context.getConfig().getString(PARTICIPANT_LIST_FILE_PATH);
         monitor = context.getMonitor().withPrefix("DEMO");
 
+        resolutionParallelism = Math.max(1, context.getSetting(RESOLUTION_PARALLELISM, 16));
+        resolutionTimeout = Duration.ofSeconds(context.getSetting(RESOLUTION_TIMEOUT_SECONDS, 10L));
+        refreshInterval = Duration.ofSeconds(context.getSetting(REFRESH_INTERVAL_SECONDS, 300L));
+
+        var nodeStorePath = context.getSetting(NODE_STORE_FILE_PATH, null);
+        nodeStoreFile = nodeStorePath != null ? Path.of(nodeStorePath).toAbsolutePath() : null;
+
+        healthTracker = new NodeHealthTracker(Clock.systemUTC(),
+                Duration.ofSeconds(context.getSetting(HEALTH_BACKOFF_SECONDS, 30L)),
+                Duration.ofSeconds(context.getSetting(HEALTH_MAX_BACKOFF_SECONDS, 3600L)),
+                monitor);
+        // 0 only logs the node health on shutdown
+        healthLogIntervalSeconds = context.getSetting(HEALTH_LOG_INTERVAL_SECONDS, 300L);
+
         participantListFile = new File(participantsPath).getAbsoluteFile();
         if (!participantListFile.exists()) {
             monitor.warning("Path '%s' does not exist. It must be a resolvable path with read access. Will not add any VCs.".formatted(participantsPath));
         }
     }
 
+    @Override
+    public void start() {
+        if (healthLogIntervalSeconds > 0) {
+            healthLogger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                var thread = new Thread(runnable, "participant-health-logger");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthLogger.scheduleAtFixedRate(healthTracker::logHealth, healthLogIntervalSeconds, healthLogIntervalSeconds, TimeUnit.SECONDS);
+        }
+
+        // the crawler action registry is looked up instead of injected: its provider injects this extension's
+        // directory and filter, so injecting it here would be a cyclic dependency
+        var crawlerActionRegistry = context.getService(CrawlerActionRegistry.class, true);
+        if (crawlerActionRegistry == null) {
+            return;
+        }
+        // the catalog actions are registered during initialization, wrap them to measure every request
+        for (var action : List.copyOf(crawlerActionRegistry.findForProtocol(LazyLoadNodeDirectory.DSP_PROTOCOL))) {
+            if (!(action instanceof HealthRecordingCrawlerAction)) {
+                crawlerActionRegistry.unregister(LazyLoadNodeDirectory.DSP_PROTOCOL, action);
+                crawlerActionRegistry.register(LazyLoadNodeDirectory.DSP_PROTOCOL, new HealthRecordingCrawlerAction(action, healthTracker));
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (nodeDirectory != null) {
+            nodeDirectory.close();
+        }
+        if (healthLogger != null) {
+            healthLogger.shutdownNow();
+        }
+        healthTracker.logHealth();
+    }
+
     @Provider
     public TargetNodeDirectory createLazyTargetNodeDirectory() {
+        return new HealthAwareNodeDirectory(lazyLoadNodeDirectory(), healthTracker);
+    }
+
+    private LazyLoadNodeDirectory lazyLoadNodeDirectory() {
         if (nodeDirectory == null) {
-            nodeDirectory = new LazyLoadNodeDirectory(typeManager.getMapper(), participantListFile, didResolverRegistry, monitor);
+            nodeDirectory = new LazyLoadNodeDirectory(typeManager.getMapper(), participantListFile, didResolverRegistry, monitor,
+                    resolutionParallelism, resolutionTimeout, refreshInterval,
+                    new TargetNodeStore(typeManager.getMapper(), nodeStoreFile, monitor));
+            nodeDirectory.registerListener(healthTracker);
         }
         return nodeDirectory;
     }
@@ -76,8 +162,13 @@ public class ParticipantsResolverExtension implements ServiceExtension {
             var predicateTest = !targetNode.id().equals(context.getParticipantId());
             if (!predicateTest) {
                 monitor.debug("Node filter: skipping node '%s' for participant '%s'".formatted(targetNode.id(), context.getParticipantId()));
+                return false;
+            }
+            if (!healthTracker.isAvailable(targetNode.id())) {
+                monitor.debug("Node filter: skipping node '%s', it failed recently".formatted(targetNode.id()));
+                return false;
             }
-            return predicateTest;
+            return true;
         };
     }
 
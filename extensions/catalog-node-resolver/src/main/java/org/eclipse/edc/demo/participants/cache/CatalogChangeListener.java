@@ -0,0 +1,44 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.cache;
+
+import org.eclipse.edc.connector.controlplane.catalog.spi.Catalog;
+import org.eclipse.edc.connector.controlplane.catalog.spi.Dataset;
+
+import java.util.Collection;
+
+/**
+ * Is notified by the {@link IncrementalCatalogCache} when a crawled catalog differs from the one in the cache. A crawl
+ * that returns the same catalog again does not cause a notification.
+ */
+public interface CatalogChangeListener {
+
+    /**
+     * A catalog was added or changed.
+     *
+     * @param catalogKey key of the catalog in the cache, the address of the participant it was crawled from
+     * @param catalog    the new catalog
+     * @param changed    datasets that are new or differ from the previous catalog
+     * @param removed    ids of datasets that are no longer in the catalog
+     */
+    default void catalogChanged(String catalogKey, Catalog catalog, Collection<Dataset> changed, Collection<String> removed) {
+    }
+
+    /**
+     * A catalog was removed, because its participant was not crawled successfully for a whole cycle.
+     */
+    default void catalogRemoved(String catalogKey, Catalog catalog) {
+    }
+}
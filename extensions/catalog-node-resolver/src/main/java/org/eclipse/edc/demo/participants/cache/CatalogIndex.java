@@ -0,0 +1,523 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.cache;
+
+import org.eclipse.edc.connector.controlplane.catalog.spi.Catalog;
+import org.eclipse.edc.connector.controlplane.catalog.spi.Dataset;
+import org.eclipse.edc.spi.query.Criterion;
+import org.eclipse.edc.spi.query.QuerySpec;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Inverted index over the datasets of the cached catalogs, kept up to date with the {@link CatalogChangeListener}
+ * events of the {@link IncrementalCatalogCache}, so that a crawl only re-indexes the datasets that changed.
+ * <p>
+ * Queries whose criteria all address dataset properties, with a left operand of {@code dataset.<property>} (e.g.
+ * {@code dataset.id}), are answered from the index. Supported operators are {@code =}, {@code in}, {@code like} with a
+ * plain prefix ({@code abc%}) and the range operators {@code <}, {@code <=}, {@code >} and {@code >=}, which compare
+ * numerically if the operand is a number and lexicographically otherwise. The result contains only the matching
+ * datasets, grouped by catalog, and offset and limit page through datasets rather than catalogs.
+ * <p>
+ * Datasets are kept in a stable order, so that large results can also be read in pages with a cursor, see
+ * {@link #page(List, String, int)}. Unlike an offset, a cursor does not skip over the earlier matches again, and a
+ * page stays consistent when datasets before it are added or removed.
+ * <p>
+ * The posting lists of the index are sorted in that order. A query walks the posting lists of its most selective
+ * criterion, starting right after the cursor, checks the other criteria on each dataset it meets and stops as soon as
+ * the page is full, so that neither the matches nor the datasets before the cursor are collected.
+ * <p>
+ * Nested property values are indexed under their dotted path, list values under the property itself.
+ */
+public class CatalogIndex implements CatalogChangeListener {
+
+    public static final String DATASET_PREFIX = "dataset.";
+    private static final String ID_PATH = "id";
+    private static final String VALUE_KEY = "@value";
+    private static final int MAX_DEPTH = 4;
+    // a criterion matching more distinct values is not walked by merging its posting lists
+    private static final int MAX_MERGED_POSTINGS = 64;
+    // such a criterion is collected into a sorted set if it matches less than this share of the datasets, otherwise
+    // all datasets are walked
+    private static final int MIN_COLLECTED_SELECTIVITY = 4;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Catalog> catalogs = new HashMap<>();
+    private final NavigableMap<DatasetRef, IndexedDataset> datasets = new TreeMap<>();
+    private final Map<String, NavigableMap<String, NavigableSet<DatasetRef>>> strings = new HashMap<>();
+    private final Map<String, NavigableMap<BigDecimal, NavigableSet<DatasetRef>>> numbers = new HashMap<>();
+
+    @Override
+    public void catalogChanged(String catalogKey, Catalog catalog, Collection<Dataset> changed, Collection<String> removed) {
+        lock.writeLock().lock();
+        try {
+            catalogs.put(catalogKey, catalog);
+            removed.forEach(id -> unindex(new DatasetRef(catalogKey, id)));
+            for (var dataset : changed) {
+                var ref = new DatasetRef(catalogKey, dataset.getId());
+                unindex(ref);
+                index(ref, dataset);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void catalogRemoved(String catalogKey, Catalog catalog) {
+        lock.writeLock().lock();
+        try {
+            catalogs.remove(catalogKey);
+            // datasets are ordered by catalog first, so the ones of the catalog are a contiguous range
+            var refs = datasets.subMap(new DatasetRef(catalogKey, null), true, new DatasetRef(catalogKey + Character.MIN_VALUE, null), false);
+            List.copyOf(refs.keySet()).forEach(this::unindex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Answers the query from the index.
+     *
+     * @return the matching datasets grouped into copies of their catalogs, or empty if the query cannot be answered
+     *         from the index
+     */
+    public Optional<List<Catalog>> query(QuerySpec query) {
+        var criteria = query.getFilterExpression();
+        if (criteria.isEmpty() || query.getSortField() != null || !isIndexed(criteria)) {
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            var result = matching(criteria, null);
+            if (result == null) {
+                return Optional.empty();
+            }
+            return Optional.of(group(result
+                    .skip(query.getOffset())
+                    .limit(query.getLimit())
+                    .toList()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the datasets matching the criteria in pages. Without criteria, all datasets are returned.
+     *
+     * @param criteria criteria on dataset properties, as for {@link #query(QuerySpec)}
+     * @param cursor   the cursor of the previous page, or null for the first page
+     * @param limit    maximum number of datasets in the page
+     * @return the page, or empty if the criteria cannot be answered from the index
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Optional<DatasetPage> page(List<Criterion> criteria, String cursor, int limit) {
+        if (!isIndexed(criteria)) {
+            return Optional.empty();
+        }
+        var after = cursor != null ? DatasetRef.fromCursor(cursor) : null;
+
+        lock.readLock().lock();
+        try {
+            var result = matching(criteria, after);
+            if (result == null) {
+                return Optional.empty();
+            }
+            // one more than requested, to know whether there is a next page
+            var refs = result.limit(limit + 1L).toList();
+            var page = refs.subList(0, Math.min(limit, refs.size()));
+            var next = refs.size() > limit ? page.get(page.size() - 1).toCursor() : null;
+            return Optional.of(new DatasetPage(group(page), next));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of indexed datasets.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return datasets.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean isIndexed(List<Criterion> criteria) {
+        return criteria.stream().allMatch(c -> c.getOperandLeft() instanceof String left && left.startsWith(DATASET_PREFIX));
+    }
+
+    /**
+     * The datasets after the given one that match all criteria, in index order, or null if a criterion is not
+     * supported. The stream is lazy and must be consumed while holding the read lock.
+     */
+    private Stream<DatasetRef> matching(List<Criterion> criteria, DatasetRef after) {
+        var matches = new ArrayList<Match>(criteria.size());
+        for (var criterion : criteria) {
+            var match = match(criterion);
+            if (match == null) {
+                return null;
+            }
+            matches.add(match);
+        }
+        // walk the most selective criterion, check the others on the datasets it yields
+        var driver = -1;
+        var driverSize = Long.MAX_VALUE;
+        for (var i = 0; i < matches.size(); i++) {
+            var size = matches.get(i).size();
+            if (size < driverSize) {
+                driver = i;
+                driverSize = size;
+            }
+        }
+        Iterator<DatasetRef> walk;
+        if (driver >= 0 && matches.get(driver).postings().size() <= MAX_MERGED_POSTINGS) {
+            walk = new MergingIterator(matches.remove(driver).postings(), after);
+        } else if (driver >= 0 && driverSize * MIN_COLLECTED_SELECTIVITY < datasets.size()) {
+            var candidates = new TreeSet<DatasetRef>();
+            matches.remove(driver).postings().forEach(refs -> candidates.addAll(after != null ? refs.tailSet(after, false) : refs));
+            walk = candidates.iterator();
+        } else {
+            walk = (after != null ? datasets.navigableKeySet().tailSet(after, false) : datasets.navigableKeySet()).iterator();
+        }
+        var result = StreamSupport.stream(Spliterators.spliteratorUnknownSize(walk, Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT), false);
+        if (matches.isEmpty()) {
+            return result;
+        }
+        return result.filter(ref -> {
+            var dataset = datasets.get(ref);
+            return matches.stream().allMatch(match -> match.test().test(dataset));
+        });
+    }
+
+    /**
+     * Groups the datasets into copies of their catalogs.
+     */
+    private List<Catalog> group(List<DatasetRef> refs) {
+        var page = new LinkedHashMap<String, List<Dataset>>();
+        refs.forEach(ref -> page.computeIfAbsent(ref.catalogKey(), k -> new ArrayList<>()).add(datasets.get(ref).dataset()));
+        return page.entrySet().stream()
+                .map(entry -> copyWithDatasets(catalogs.get(entry.getKey()), entry.getValue()))
+                .toList();
+    }
+
+    private Match match(Criterion criterion) {
+        var path = ((String) criterion.getOperandLeft()).substring(DATASET_PREFIX.length());
+        var right = criterion.getOperandRight();
+        var operator = criterion.getOperator().toLowerCase();
+        return switch (operator) {
+            case "=" -> right == null ? null : equalTo(path, normalize(right));
+            case "in" -> {
+                if (!(right instanceof Collection<?> values)) {
+                    yield null;
+                }
+                var normalized = values.stream().map(CatalogIndex::normalize).collect(Collectors.toSet());
+                var index = strings.get(path);
+                var postings = index == null ? List.<NavigableSet<DatasetRef>>of() : normalized.stream()
+                        .map(index::get)
+                        .filter(Objects::nonNull)
+                        .toList();
+                yield new Match(postings, dataset -> dataset.has(path, normalized::contains));
+            }
+            case "like" -> {
+                if (!(right instanceof String pattern)) {
+                    yield null;
+                }
+                var prefix = pattern.endsWith("%") ? pattern.substring(0, pattern.length() - 1) : pattern;
+                if (prefix.contains("%") || prefix.contains("_")) {
+                    yield null;
+                }
+                yield pattern.endsWith("%") ? startingWith(path, prefix) : equalTo(path, prefix);
+            }
+            case "<", "<=", ">", ">=" -> range(path, operator, right);
+            default -> null;
+        };
+    }
+
+    private Match equalTo(String path, String value) {
+        var index = strings.get(path);
+        var refs = index != null ? index.get(value) : null;
+        return new Match(refs != null ? List.of(refs) : List.of(), dataset -> dataset.has(path, value::equals));
+    }
+
+    private Match range(String path, String operator, Object bound) {
+        var number = toNumber(bound);
+        if (number != null) {
+            return new Match(range(numbers.get(path), operator, number),
+                    dataset -> dataset.has(path, value -> value instanceof BigDecimal decimal && inRange(decimal, operator, number)));
+        }
+        if (bound == null) {
+            return null;
+        }
+        var string = bound.toString();
+        return new Match(range(strings.get(path), operator, string),
+                dataset -> dataset.has(path, value -> value instanceof String text && inRange(text, operator, string)));
+    }
+
+    private static <K extends Comparable<K>> Collection<NavigableSet<DatasetRef>> range(NavigableMap<K, NavigableSet<DatasetRef>> index, String operator, K bound) {
+        if (index == null) {
+            return List.of();
+        }
+        var matches = switch (operator) {
+            case "<" -> index.headMap(bound, false);
+            case "<=" -> index.headMap(bound, true);
+            case ">" -> index.tailMap(bound, false);
+            default -> index.tailMap(bound, true);
+        };
+        return matches.values();
+    }
+
+    private static <K extends Comparable<K>> boolean inRange(K value, String operator, K bound) {
+        var comparison = value.compareTo(bound);
+        return switch (operator) {
+            case "<" -> comparison < 0;
+            case "<=" -> comparison <= 0;
+            case ">" -> comparison > 0;
+            default -> comparison >= 0;
+        };
+    }
+
+    private Match startingWith(String path, String prefix) {
+        var index = strings.get(path);
+        var postings = index != null ? index.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values() : List.<NavigableSet<DatasetRef>>of();
+        return new Match(postings, dataset -> dataset.has(path, value -> value instanceof String text && text.startsWith(prefix)));
+    }
+
+    private void index(DatasetRef ref, Dataset dataset) {
+        var values = new ArrayList<Map.Entry<String, Object>>();
+        if (dataset.getId() != null) {
+            values.add(Map.entry(ID_PATH, dataset.getId()));
+        }
+        if (dataset.getProperties() != null) {
+            dataset.getProperties().forEach((key, value) -> collect(key, value, 0, values));
+        }
+        for (var entry : values) {
+            if (entry.getValue() instanceof BigDecimal number) {
+                numbers.computeIfAbsent(entry.getKey(), k -> new TreeMap<>()).computeIfAbsent(number, k -> new TreeSet<>()).add(ref);
+            } else {
+                strings.computeIfAbsent(entry.getKey(), k -> new TreeMap<>()).computeIfAbsent((String) entry.getValue(), k -> new TreeSet<>()).add(ref);
+            }
+        }
+        datasets.put(ref, new IndexedDataset(dataset, values));
+    }
+
+    private void unindex(DatasetRef ref) {
+        var indexed = datasets.remove(ref);
+        if (indexed == null) {
+            return;
+        }
+        for (var entry : indexed.values()) {
+            var index = entry.getValue() instanceof BigDecimal ? numbers.get(entry.getKey()) : strings.get(entry.getKey());
+            if (index == null) {
+                continue;
+            }
+            var refs = index.get(entry.getValue());
+            if (refs != null) {
+                refs.remove(ref);
+                if (refs.isEmpty()) {
+                    index.remove(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Flattens a property value into indexable entries. Numbers are indexed numerically and as text, so that equality
+     * works with either.
+     */
+    private static void collect(String path, Object value, int depth, List<Map.Entry<String, Object>> values) {
+        if (value == null || depth > MAX_DEPTH) {
+            return;
+        }
+        if (value instanceof Map<?, ?> map) {
+            if (map.containsKey(VALUE_KEY)) {
+                collect(path, map.get(VALUE_KEY), depth + 1, values);
+            } else {
+                map.forEach((key, nested) -> collect(path + "." + key, nested, depth + 1, values));
+            }
+        } else if (value instanceof Collection<?> collection) {
+            collection.forEach(element -> collect(path, element, depth + 1, values));
+        } else if (value instanceof Number number) {
+            var decimal = new BigDecimal(number.toString());
+            values.add(Map.entry(path, decimal));
+            values.add(Map.entry(path, normalize(decimal)));
+        } else {
+            values.add(Map.entry(path, value.toString()));
+        }
+    }
+
+    private static String normalize(Object value) {
+        if (value instanceof Number number) {
+            return new BigDecimal(number.toString()).stripTrailingZeros().toPlainString();
+        }
+        return value.toString();
+    }
+
+    private static BigDecimal toNumber(Object value) {
+        if (value instanceof Number number) {
+            return new BigDecimal(number.toString());
+        }
+        if (value instanceof String string) {
+            try {
+                return new BigDecimal(string);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static Catalog copyWithDatasets(Catalog catalog, List<Dataset> datasets) {
+        return Catalog.Builder.newInstance()
+                .id(catalog.getId())
+                .participantId(catalog.getParticipantId())
+                .properties(catalog.getProperties())
+                .offers(catalog.getOffers())
+                .distributions(catalog.getDistributions())
+                .dataServices(catalog.getDataServices())
+                .datasets(datasets)
+                .build();
+    }
+
+    /**
+     * A page of datasets, grouped into copies of their catalogs.
+     *
+     * @param catalogs   the catalogs, each with the datasets of this page only
+     * @param nextCursor the cursor to read the next page with, or null if this is the last page
+     */
+    public record DatasetPage(List<Catalog> catalogs, String nextCursor) {
+    }
+
+    private record DatasetRef(String catalogKey, String datasetId) implements Comparable<DatasetRef> {
+        private static final Comparator<DatasetRef> ORDER = Comparator.comparing(DatasetRef::catalogKey)
+                .thenComparing(DatasetRef::datasetId, Comparator.nullsFirst(Comparator.naturalOrder()));
+        private static final char SEPARATOR = '\n';
+
+        @Override
+        public int compareTo(DatasetRef other) {
+            return ORDER.compare(this, other);
+        }
+
+        /**
+         * The cursor is the position of the last dataset of a page, so that the next page starts right after it, even
+         * if that dataset was removed in the meantime.
+         */
+        String toCursor() {
+            var position = datasetId != null ? catalogKey + SEPARATOR + datasetId : catalogKey;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static DatasetRef fromCursor(String cursor) {
+            var position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var separator = position.indexOf(SEPARATOR);
+            return separator < 0 ? new DatasetRef(position, null) : new DatasetRef(position.substring(0, separator), position.substring(separator + 1));
+        }
+    }
+
+    private record IndexedDataset(Dataset dataset, List<Map.Entry<String, Object>> values) {
+        boolean has(String path, Predicate<Object> value) {
+            for (var entry : values) {
+                if (entry.getKey().equals(path) && value.test(entry.getValue())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A criterion resolved against the index.
+     *
+     * @param postings the posting lists of the values the criterion matches, their union are the matching datasets
+     * @param test     whether a single dataset matches the criterion
+     */
+    private record Match(Collection<NavigableSet<DatasetRef>> postings, Predicate<IndexedDataset> test) {
+        long size() {
+            var size = 0L;
+            for (var refs : postings) {
+                size += refs.size();
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Merges sorted posting lists into one sorted walk without duplicates, starting after the given dataset.
+     */
+    private static final class MergingIterator implements Iterator<DatasetRef> {
+        private final PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing(Head::ref));
+
+        MergingIterator(Collection<NavigableSet<DatasetRef>> postings, DatasetRef after) {
+            postings.forEach(refs -> advance((after != null ? refs.tailSet(after, false) : refs).iterator()));
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public DatasetRef next() {
+            var head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            advance(head.rest());
+            // a dataset is in several posting lists if it has several of the values
+            while (!heads.isEmpty() && heads.peek().ref().equals(head.ref())) {
+                advance(heads.poll().rest());
+            }
+            return head.ref();
+        }
+
+        private void advance(Iterator<DatasetRef> rest) {
+            if (rest.hasNext()) {
+                heads.add(new Head(rest.next(), rest));
+            }
+        }
+
+        private record Head(DatasetRef ref, Iterator<DatasetRef> rest) {
+        }
+    }
+}
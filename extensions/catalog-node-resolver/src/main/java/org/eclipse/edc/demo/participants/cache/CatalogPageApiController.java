@@ -0,0 +1,122 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.cache;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.json.JsonObject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.UriInfo;
+import org.eclipse.edc.connector.controlplane.catalog.spi.Catalog;
+import org.eclipse.edc.jsonld.spi.JsonLd;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.query.QuerySpec;
+import org.eclipse.edc.transform.spi.TypeTransformerRegistry;
+import org.eclipse.edc.web.spi.exception.InvalidRequestException;
+
+import java.util.List;
+
+/**
+ * Reads the federated catalog in pages of datasets, for participants whose catalogs are too large to be returned by
+ * the query API at once.
+ * <p>
+ * The request body is a query spec, like for the query API, but only criteria on dataset properties are supported (see
+ * {@link CatalogIndex}), and offset and limit are replaced by the {@code cursor} and {@code limit} query parameters. If
+ * there are more datasets, the response carries a {@code Link} header with relation {@code next}, which points to the
+ * next page. The body has the same shape as the response of the query API: an array of catalogs, each containing the
+ * datasets of the page only. The catalogs are compacted and written one after the other, so that the response is never
+ * held in memory as a whole.
+ */
+@Consumes(MediaType.APPLICATION_JSON)
+@Produces(MediaType.APPLICATION_JSON)
+@Path("/v1alpha/catalog/pages")
+public class CatalogPageApiController {
+
+    private static final String CATALOG_QUERY_SCOPE = "CATALOG_QUERY_API";
+
+    private final CatalogIndex index;
+    private final TypeTransformerRegistry transformerRegistry;
+    private final JsonLd jsonLd;
+    private final ObjectMapper mapper;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final Monitor monitor;
+
+    public CatalogPageApiController(CatalogIndex index, TypeTransformerRegistry transformerRegistry, JsonLd jsonLd, ObjectMapper mapper,
+                                    int defaultPageSize, int maxPageSize, Monitor monitor) {
+        this.index = index;
+        this.transformerRegistry = transformerRegistry;
+        this.jsonLd = jsonLd;
+        this.mapper = mapper;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.monitor = monitor;
+    }
+
+    @POST
+    public Response getCatalogPage(JsonObject querySpecJson, @QueryParam("cursor") String cursor, @QueryParam("limit") Integer limit,
+                                   @Context UriInfo uriInfo) {
+        var querySpec = querySpecJson == null ? QuerySpec.Builder.newInstance().build() :
+                transformerRegistry.transform(querySpecJson, QuerySpec.class).orElseThrow(InvalidRequestException::new);
+        if (limit != null && limit < 1) {
+            throw new InvalidRequestException("limit must be at least 1");
+        }
+        var pageSize = limit != null ? Math.min(limit, maxPageSize) : defaultPageSize;
+
+        CatalogIndex.DatasetPage page;
+        try {
+            page = index.page(querySpec.getFilterExpression(), cursor, pageSize)
+                    .orElseThrow(() -> new InvalidRequestException("Only criteria on dataset properties (%s...) with the operators =, in, like and <, <=, >, >= are supported"
+                            .formatted(CatalogIndex.DATASET_PREFIX)));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid cursor: " + cursor);
+        }
+
+        var response = Response.ok(streamed(page.catalogs()));
+        if (page.nextCursor() != null) {
+            response.link(uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("cursor", page.nextCursor())
+                    .replaceQueryParam("limit", pageSize)
+                    .build(), "next");
+        }
+        return response.build();
+    }
+
+    private StreamingOutput streamed(List<Catalog> catalogs) {
+        return output -> {
+            try (var generator = mapper.getFactory().createGenerator(output).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.writeStartArray();
+                for (var catalog : catalogs) {
+                    var json = transformerRegistry.transform(catalog, JsonObject.class)
+                            .compose(expanded -> jsonLd.compact(expanded, CATALOG_QUERY_SCOPE));
+                    if (json.failed()) {
+                        monitor.warning("Cannot write catalog %s: %s".formatted(catalog.getId(), json.getFailureDetail()));
+                        continue;
+                    }
+                    mapper.writeValue(generator, json.getContent());
+                }
+                generator.writeEndArray();
+            }
+        };
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.cache;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.HttpMethod;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import org.eclipse.edc.connector.controlplane.catalog.spi.Catalog;
+import org.eclipse.edc.connector.controlplane.catalog.spi.Dataset;
+import org.eclipse.edc.spi.monitor.Monitor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the serialized responses of the federated catalog query API, so that a repeated query is answered with the
+ * stored bytes, without querying the cache, transforming the catalogs to JSON-LD and serializing them again.
+ * <p>
+ * Responses are keyed by the SHA-256 digest of the request path, query parameters, {@code Accept} header and body, and
+ * are served with the media type they were written with. Any change reported by the {@link IncrementalCatalogCache}
+ * invalidates all responses: a generation counter is incremented, and responses of an earlier generation are neither
+ * served nor stored.
+ * <p>
+ * The cache is bounded by the total size of the stored bodies. The least recently used responses are evicted first, and
+ * a response larger than the whole cache is not stored.
+ * <p>
+ * The body is captured while it is written, after the JSON-LD interceptor of the API has compacted it, so that a cached
+ * response is byte for byte the one the controller produced.
+ */
+@Priority(Priorities.USER + 100)
+public class CatalogResponseCache implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor, CatalogChangeListener {
+
+    private static final String QUERY_PATH = "catalog/query";
+    private static final String PENDING_PROPERTY = CatalogResponseCache.class.getName() + ".pending";
+
+    private final long maxBytes;
+    private final Monitor monitor;
+    private final Map<String, CachedResponse> responses = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+    private long cachedBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates the cache.
+     *
+     * @param maxBytes maximum total size of the cached response bodies
+     */
+    public CatalogResponseCache(long maxBytes, Monitor monitor) {
+        this.maxBytes = maxBytes;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request) throws IOException {
+        if (!HttpMethod.POST.equals(request.getMethod()) || !request.getUriInfo().getPath().endsWith(QUERY_PATH)) {
+            return;
+        }
+        var body = request.hasEntity() ? request.getEntityStream().readAllBytes() : new byte[0];
+        request.setEntityStream(new ByteArrayInputStream(body));
+
+        var key = keyOf(request.getUriInfo().getRequestUri().toString(), request.getHeaderString(HttpHeaders.ACCEPT), body);
+        var currentGeneration = generation.get();
+        CachedResponse cached;
+        synchronized (responses) {
+            cached = responses.get(key);
+        }
+        if (cached != null && cached.generation() == currentGeneration) {
+            hits.incrementAndGet();
+            request.abortWith(Response.ok(cached.body(), cached.mediaType()).build());
+            return;
+        }
+        misses.incrementAndGet();
+        request.setProperty(PENDING_PROPERTY, new PendingResponse(key, currentGeneration));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (response.getStatus() != Response.Status.OK.getStatusCode() || !response.hasEntity()) {
+            request.removeProperty(PENDING_PROPERTY);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        if (!(context.getProperty(PENDING_PROPERTY) instanceof PendingResponse pending)) {
+            context.proceed();
+            return;
+        }
+        var copy = new BoundedCopy();
+        var out = context.getOutputStream();
+        context.setOutputStream(new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                copy.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                copy.write(b, off, len);
+            }
+        });
+        context.proceed();
+        context.setOutputStream(out);
+
+        if (copy.overflowed) {
+            return;
+        }
+        var mediaType = context.getMediaType() != null ? context.getMediaType() : MediaType.APPLICATION_JSON_TYPE;
+        var response = new CachedResponse(copy.toByteArray(), mediaType, pending.generation());
+        synchronized (responses) {
+            // the catalogs may have changed while the response was built
+            if (pending.generation() == generation.get()) {
+                var replaced = responses.put(pending.key(), response);
+                cachedBytes += response.body().length - (replaced != null ? replaced.body().length : 0);
+                evictLeastRecentlyUsed();
+            }
+        }
+    }
+
+    @Override
+    public void catalogChanged(String catalogKey, Catalog catalog, Collection<Dataset> changed, Collection<String> removed) {
+        invalidate();
+    }
+
+    @Override
+    public void catalogRemoved(String catalogKey, Catalog catalog) {
+        invalidate();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Total size of the cached response bodies.
+     */
+    public long getCachedBytes() {
+        synchronized (responses) {
+            return cachedBytes;
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        var iterator = responses.values().iterator();
+        while (cachedBytes > maxBytes && iterator.hasNext()) {
+            cachedBytes -= iterator.next().body().length;
+            iterator.remove();
+        }
+    }
+
+    private void invalidate() {
+        synchronized (responses) {
+            generation.incrementAndGet();
+            responses.clear();
+            cachedBytes = 0;
+        }
+        monitor.debug("Catalog query responses invalidated");
+    }
+
+    private static String keyOf(String requestUri, String accept, byte[] body) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(requestUri.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(accept).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record PendingResponse(String key, long generation) {
+    }
+
+    private record CachedResponse(byte[] body, MediaType mediaType, long generation) {
+    }
+
+    /**
+     * Copy of a response body, which stops copying once the body no longer fits into the cache.
+     */
+    private final class BoundedCopy extends ByteArrayOutputStream {
+        private boolean overflowed;
+
+        @Override
+        public void write(int b) {
+            if (fits(1)) {
+                super.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (fits(len)) {
+                super.write(b, off, len);
+            }
+        }
+
+        private boolean fits(int len) {
+            if (!overflowed && count + (long) len > maxBytes) {
+                overflowed = true;
+                reset();
+            }
+            return !overflowed;
+        }
+    }
+}
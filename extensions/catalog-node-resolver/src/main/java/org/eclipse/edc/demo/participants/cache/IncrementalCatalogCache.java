@@ -0,0 +1,248 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.eclipse.edc.catalog.spi.FederatedCatalogCache;
+import org.eclipse.edc.connector.controlplane.catalog.spi.Catalog;
+import org.eclipse.edc.connector.controlplane.catalog.spi.Dataset;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.query.QueryResolver;
+import org.eclipse.edc.spi.query.QuerySpec;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import static org.eclipse.edc.catalog.spi.CatalogConstants.PROPERTY_ORIGINATOR;
+
+/**
+ * {@link FederatedCatalogCache} that detects which crawled catalogs and datasets actually changed.
+ * <p>
+ * For every catalog, a content hash of each dataset and of the catalog as a whole is kept. When a crawl returns a
+ * catalog with the same hash, the cached catalog is only marked as current, like the default cache does, and nothing
+ * else happens. Otherwise, the datasets are compared by hash, the catalog is replaced and {@link CatalogChangeListener}s
+ * are told which datasets were added, changed or removed, so that they can update only those.
+ * <p>
+ * Queries on dataset properties are answered from a {@link CatalogIndex}, which is maintained from the same change
+ * events. All other queries are evaluated against the cached catalogs, like in the default cache.
+ * <p>
+ * Like the default cache, entries are expired before a crawl cycle and deleted before the next one, if they were not
+ * crawled again in between.
+ */
+public class IncrementalCatalogCache implements FederatedCatalogCache {
+
+    private final ObjectMapper mapper;
+    private final QueryResolver<Catalog> queryResolver;
+    private final CatalogIndex index;
+    private final Monitor monitor;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<CatalogChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong changed = new AtomicLong();
+    private final AtomicLong changedDatasets = new AtomicLong();
+
+    public IncrementalCatalogCache(ObjectMapper mapper, QueryResolver<Catalog> queryResolver, CatalogIndex index, Monitor monitor) {
+        // sorted map keys, so that equal content always hashes the same
+        this.mapper = mapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        this.queryResolver = queryResolver;
+        this.index = index;
+        listeners.add(index);
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void save(Catalog catalog) {
+        var key = keyOf(catalog);
+        // hash outside the lock, it is the expensive part
+        var datasetHashes = new LinkedHashMap<String, String>();
+        for (var dataset : catalog.getDatasets()) {
+            datasetHashes.put(dataset.getId(), hash(dataset, "dataset %s of catalog %s".formatted(dataset.getId(), key)));
+        }
+        var catalogHash = hash(List.of(catalogHeader(catalog), datasetHashes), "catalog " + key);
+
+        List<Dataset> changedInCatalog;
+        List<String> removedFromCatalog;
+        lock.writeLock().lock();
+        try {
+            var previous = entries.get(key);
+            if (previous != null && previous.hash().equals(catalogHash)) {
+                previous.expired = false;
+                unchanged.incrementAndGet();
+                return;
+            }
+
+            var previousHashes = previous != null ? previous.datasetHashes() : Map.<String, String>of();
+            changedInCatalog = catalog.getDatasets().stream()
+                    .filter(dataset -> !datasetHashes.get(dataset.getId()).equals(previousHashes.get(dataset.getId())))
+                    .toList();
+            removedFromCatalog = previousHashes.keySet().stream()
+                    .filter(id -> !datasetHashes.containsKey(id))
+                    .toList();
+            entries.put(key, new Entry(catalog, catalogHash, datasetHashes));
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        changed.incrementAndGet();
+        changedDatasets.addAndGet(changedInCatalog.size() + removedFromCatalog.size());
+        monitor.debug("Catalog %s changed: %d datasets added or changed, %d removed".formatted(key, changedInCatalog.size(), removedFromCatalog.size()));
+        notifyListeners(listener -> listener.catalogChanged(key, catalog, changedInCatalog, removedFromCatalog));
+    }
+
+    @Override
+    public Collection<Catalog> query(QuerySpec query) {
+        var indexed = index.query(query);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        lock.readLock().lock();
+        try {
+            return queryResolver.query(entries.values().stream().map(Entry::catalog), query).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteExpired() {
+        var removed = new ArrayList<Map.Entry<String, Entry>>();
+        lock.writeLock().lock();
+        try {
+            var iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                var entry = iterator.next();
+                if (entry.getValue().expired) {
+                    removed.add(entry);
+                    iterator.remove();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        removed.forEach(entry -> notifyListeners(listener -> listener.catalogRemoved(entry.getKey(), entry.getValue().catalog())));
+    }
+
+    @Override
+    public void expireAll() {
+        lock.writeLock().lock();
+        try {
+            entries.values().forEach(entry -> entry.expired = true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void registerListener(CatalogChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Number of saved catalogs that were identical to the cached ones.
+     */
+    public long getUnchangedCount() {
+        return unchanged.get();
+    }
+
+    /**
+     * Number of saved catalogs that were new or differed from the cached ones.
+     */
+    public long getChangedCount() {
+        return changed.get();
+    }
+
+    /**
+     * Number of datasets that were added, changed or removed by all saved catalogs.
+     */
+    public long getChangedDatasetCount() {
+        return changedDatasets.get();
+    }
+
+    private void notifyListeners(Consumer<CatalogChangeListener> event) {
+        for (var listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                monitor.warning("Catalog change listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * The parts of a catalog that are not datasets.
+     */
+    private static List<Object> catalogHeader(Catalog catalog) {
+        var dataServices = catalog.getDataServices() != null ? catalog.getDataServices() : List.of();
+        return List.of(Objects.toString(catalog.getId()), Objects.toString(catalog.getParticipantId()), catalog.getProperties(), dataServices);
+    }
+
+    private String hash(Object value, String description) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(mapper.writeValueAsBytes(value)));
+        } catch (JsonProcessingException e) {
+            // cannot tell whether it changed, so it is treated as changed on every crawl, which defeats the cache for it
+            monitor.warning("Cannot hash %s, it is re-indexed on every crawl: %s".formatted(description, e.getMessage()));
+            return "unhashable-" + System.nanoTime();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String keyOf(Catalog catalog) {
+        var originator = catalog.getProperties().get(PROPERTY_ORIGINATOR);
+        return originator != null ? originator.toString() : catalog.getId();
+    }
+
+    private static final class Entry {
+        private final Catalog catalog;
+        private final String hash;
+        private final Map<String, String> datasetHashes;
+        private volatile boolean expired;
+
+        private Entry(Catalog catalog, String hash, Map<String, String> datasetHashes) {
+            this.catalog = catalog;
+            this.hash = hash;
+            this.datasetHashes = datasetHashes;
+        }
+
+        Catalog catalog() {
+            return catalog;
+        }
+
+        String hash() {
+            return hash;
+        }
+
+        Map<String, String> datasetHashes() {
+            return datasetHashes;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.cache;
+
+import org.eclipse.edc.catalog.spi.FederatedCatalogCache;
+import org.eclipse.edc.connector.controlplane.catalog.spi.Catalog;
+import org.eclipse.edc.jsonld.spi.JsonLd;
+import org.eclipse.edc.runtime.metamodel.annotation.Inject;
+import org.eclipse.edc.runtime.metamodel.annotation.Provides;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.query.CriterionOperatorRegistry;
+import org.eclipse.edc.spi.system.ServiceExtension;
+import org.eclipse.edc.spi.system.ServiceExtensionContext;
+import org.eclipse.edc.spi.types.TypeManager;
+import org.eclipse.edc.store.ReflectionBasedQueryResolver;
+import org.eclipse.edc.transform.spi.TypeTransformerRegistry;
+import org.eclipse.edc.web.spi.WebService;
+
+import static org.eclipse.edc.spi.constants.CoreConstants.JSON_LD;
+
+/**
+ * Replaces the default in-memory {@link FederatedCatalogCache} with an {@link IncrementalCatalogCache}, which only
+ * reports catalogs and datasets that changed between crawls, and answers queries on dataset properties from an index.
+ * Responses of the catalog query API are kept serialized in a {@link CatalogResponseCache} until the catalogs change,
+ * and large catalogs can be read in pages of datasets through the {@link CatalogPageApiController}.
+ */
+@Provides({ FederatedCatalogCache.class, IncrementalCatalogCache.class })
+public class IncrementalCatalogCacheExtension implements ServiceExtension {
+
+    public static final String RESPONSE_CACHE_MAX_BYTES = "edc.mvd.catalog.responsecache.maxbytes";
+    public static final String PAGE_SIZE = "edc.mvd.catalog.page.size";
+    public static final String PAGE_SIZE_MAX = "edc.mvd.catalog.page.size.max";
+    private static final String CATALOG_API_CONTEXT = "catalog";
+
+    @Inject
+    private TypeManager typeManager;
+
+    @Inject
+    private CriterionOperatorRegistry criterionOperatorRegistry;
+
+    @Inject
+    private WebService webService;
+
+    @Inject
+    private TypeTransformerRegistry transformerRegistry;
+
+    @Inject
+    private JsonLd jsonLd;
+
+    private IncrementalCatalogCache cache;
+    private CatalogResponseCache responseCache;
+    private Monitor monitor;
+
+    @Override
+    public void initialize(ServiceExtensionContext context) {
+        monitor = context.getMonitor().withPrefix("DEMO");
+        var index = new CatalogIndex();
+        cache = new IncrementalCatalogCache(typeManager.getMapper(),
+                new ReflectionBasedQueryResolver<>(Catalog.class, criterionOperatorRegistry), index, monitor);
+        context.registerService(FederatedCatalogCache.class, cache);
+        context.registerService(IncrementalCatalogCache.class, cache);
+
+        var responseCacheMaxBytes = context.getSetting(RESPONSE_CACHE_MAX_BYTES, 64L * 1024 * 1024);
+        if (responseCacheMaxBytes > 0) {
+            responseCache = new CatalogResponseCache(responseCacheMaxBytes, monitor);
+            cache.registerListener(responseCache);
+            webService.registerResource(CATALOG_API_CONTEXT, responseCache);
+        }
+
+        var maxPageSize = context.getSetting(PAGE_SIZE_MAX, 1000);
+        var pageSize = Math.min(context.getSetting(PAGE_SIZE, 100), maxPageSize);
+        webService.registerResource(CATALOG_API_CONTEXT, new CatalogPageApiController(index, transformerRegistry, jsonLd,
+                typeManager.getMapper(JSON_LD), pageSize, maxPageSize, monitor));
+    }
+
+    @Override
+    public void shutdown() {
+        monitor.info("Catalog cache: %d catalogs unchanged, %d changed with %d datasets added, changed or removed"
+                .formatted(cache.getUnchangedCount(), cache.getChangedCount(), cache.getChangedDatasetCount()));
+        if (responseCache != null) {
+            monitor.info("Catalog query responses: %d served from cache, %d built".formatted(responseCache.getHitCount(), responseCache.getMissCount()));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.health;
+
+import org.eclipse.edc.crawler.spi.TargetNode;
+import org.eclipse.edc.crawler.spi.TargetNodeDirectory;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@link TargetNodeDirectory} that hands out the nodes of another directory fastest first, so that the crawlers work
+ * through the responsive participants before they wait on slow ones. Nodes that have not been crawled yet come first,
+ * to get a measurement.
+ */
+public class HealthAwareNodeDirectory implements TargetNodeDirectory {
+
+    private final TargetNodeDirectory delegate;
+    private final NodeHealthTracker tracker;
+
+    public HealthAwareNodeDirectory(TargetNodeDirectory delegate, NodeHealthTracker tracker) {
+        this.delegate = delegate;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public List<TargetNode> getAll() {
+        return delegate.getAll().stream()
+                .sorted(Comparator.comparingLong(node -> tracker.latencyOf(node.id())))
+                .toList();
+    }
+
+    @Override
+    public void insert(TargetNode targetNode) {
+        delegate.insert(targetNode);
+    }
+
+    @Override
+    public TargetNode remove(String id) {
+        return delegate.remove(id);
+    }
+}
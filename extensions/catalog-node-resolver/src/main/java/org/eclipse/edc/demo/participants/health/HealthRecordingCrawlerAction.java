@@ -0,0 +1,61 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.health;
+
+import org.eclipse.edc.crawler.spi.CrawlerAction;
+import org.eclipse.edc.crawler.spi.model.UpdateRequest;
+import org.eclipse.edc.crawler.spi.model.UpdateResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Wraps the {@link CrawlerAction} that fetches a catalog, and reports the latency and outcome of every request to the
+ * {@link NodeHealthTracker}.
+ */
+public class HealthRecordingCrawlerAction implements CrawlerAction {
+
+    private final CrawlerAction delegate;
+    private final NodeHealthTracker tracker;
+
+    public HealthRecordingCrawlerAction(CrawlerAction delegate, NodeHealthTracker tracker) {
+        this.delegate = delegate;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public CompletableFuture<UpdateResponse> apply(UpdateRequest request) {
+        var start = System.nanoTime();
+        CompletableFuture<UpdateResponse> response;
+        try {
+            response = delegate.apply(request);
+        } catch (RuntimeException e) {
+            tracker.recordFailure(request.nodeId(), Duration.ofNanos(System.nanoTime() - start));
+            throw e;
+        }
+        return response.whenComplete((result, throwable) -> {
+            var latency = Duration.ofNanos(System.nanoTime() - start);
+            if (throwable == null && result != null) {
+                tracker.recordSuccess(request.nodeId(), latency);
+            } else {
+                tracker.recordFailure(request.nodeId(), latency);
+            }
+        });
+    }
+
+    public CrawlerAction getDelegate() {
+        return delegate;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.health;
+
+import org.eclipse.edc.crawler.spi.TargetNode;
+import org.eclipse.edc.demo.participants.resolver.TargetNodeListener;
+import org.eclipse.edc.spi.monitor.Monitor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the outcome and latency of every catalog request per target node.
+ * <ul>
+ *     <li>The latency is kept as an exponentially weighted moving average, so that a single slow response does not
+ *     move a node to the back of the queue.</li>
+ *     <li>After a failure, a node is skipped for a backoff period that doubles with every consecutive failure, up to
+ *     a maximum. One success resets it.</li>
+ * </ul>
+ * As a {@link TargetNodeListener}, it forgets the nodes that are removed from the directory.
+ */
+public class NodeHealthTracker implements TargetNodeListener {
+
+    private static final double LATENCY_WEIGHT = 0.3;
+
+    private final Clock clock;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Monitor monitor;
+    private final Map<String, NodeHealth> health = new ConcurrentHashMap<>();
+
+    public NodeHealthTracker(Clock clock, Duration initialBackoff, Duration maxBackoff, Monitor monitor) {
+        this.clock = clock;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.monitor = monitor;
+    }
+
+    public void recordSuccess(String nodeId, Duration latency) {
+        var updated = health.merge(nodeId, NodeHealth.initial(latency).succeeded(latency),
+                (current, ignored) -> current.succeeded(latency));
+        if (updated.lastFailures() > 0) {
+            monitor.info("Node %s is reachable again after %d failures".formatted(nodeId, updated.lastFailures()));
+        }
+    }
+
+    public void recordFailure(String nodeId, Duration latency) {
+        var now = clock.instant();
+        var updated = health.compute(nodeId, (id, current) -> {
+            var base = current != null ? current : NodeHealth.initial(latency);
+            var failures = base.consecutiveFailures() + 1;
+            return base.failed(latency, failures, now.plus(backoff(failures)));
+        });
+        monitor.warning("Crawling node %s failed %d times in a row, skipping it until %s"
+                .formatted(nodeId, updated.consecutiveFailures(), updated.retryAt()));
+    }
+
+    @Override
+    public void removed(TargetNode node) {
+        health.remove(node.id());
+    }
+
+    /**
+     * Whether the node should be crawled now, i.e. it has not failed recently or its backoff has passed.
+     */
+    public boolean isAvailable(String nodeId) {
+        var nodeHealth = health.get(nodeId);
+        return nodeHealth == null || nodeHealth.retryAt() == null || !clock.instant().isBefore(nodeHealth.retryAt());
+    }
+
+    /**
+     * Average latency of the node in milliseconds, 0 if it has not been crawled yet.
+     */
+    public long latencyOf(String nodeId) {
+        var nodeHealth = health.get(nodeId);
+        return nodeHealth == null ? 0 : nodeHealth.averageLatencyMillis();
+    }
+
+    /**
+     * Current health of all nodes that have been crawled, by node id.
+     */
+    public Map<String, NodeHealth> snapshot() {
+        return Map.copyOf(health);
+    }
+
+    /**
+     * Logs how many nodes have been crawled and how many are backed off, and the health of every node at debug level.
+     */
+    public void logHealth() {
+        var nodes = snapshot();
+        var backedOff = nodes.keySet().stream().filter(id -> !isAvailable(id)).count();
+        monitor.info("Node health: %d nodes crawled, %d backed off".formatted(nodes.size(), backedOff));
+        nodes.forEach((id, nodeHealth) -> monitor.debug("Node %s: %s".formatted(id, nodeHealth)));
+    }
+
+    private Duration backoff(int failures) {
+        // cap the exponent, the maximum is reached long before the shift overflows
+        var backoff = initialBackoff.multipliedBy(1L << Math.min(failures - 1, 20));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    /**
+     * Health of one node.
+     *
+     * @param averageLatencyMillis moving average of the request latency
+     * @param consecutiveFailures  failures since the last success
+     * @param lastFailures         consecutive failures before the last success
+     * @param retryAt              when a failed node is crawled again, {@code null} if it did not fail
+     * @param successes            total successful requests
+     * @param failures             total failed requests
+     */
+    public record NodeHealth(long averageLatencyMillis, int consecutiveFailures, int lastFailures, Instant retryAt,
+                             long successes, long failures) {
+
+        static NodeHealth initial(Duration latency) {
+            return new NodeHealth(latency.toMillis(), 0, 0, null, 0, 0);
+        }
+
+        NodeHealth succeeded(Duration latency) {
+            return new NodeHealth(average(latency), 0, consecutiveFailures, null, successes + 1, failures);
+        }
+
+        NodeHealth failed(Duration latency, int consecutiveFailures, Instant retryAt) {
+            return new NodeHealth(average(latency), consecutiveFailures, lastFailures, retryAt, successes, failures + 1);
+        }
+
+        private long average(Duration latency) {
+            return Math.round(LATENCY_WEIGHT * latency.toMillis() + (1 - LATENCY_WEIGHT) * averageLatencyMillis);
+        }
+    }
+}
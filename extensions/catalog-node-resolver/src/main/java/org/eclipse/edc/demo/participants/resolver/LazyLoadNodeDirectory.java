@@ -14,67 +14,355 @@
 
 package org.eclipse.edc.demo.participants.resolver;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.eclipse.edc.crawler.spi.TargetNode;
 import org.eclipse.edc.crawler.spi.TargetNodeDirectory;
 import org.eclipse.edc.iam.did.spi.document.Service;
 import org.eclipse.edc.iam.did.spi.resolution.DidResolverRegistry;
-import org.eclipse.edc.spi.EdcException;
 import org.eclipse.edc.spi.monitor.Monitor;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 
 /**
  * {@link TargetNodeDirectory} that is initialized with a file, that contains participant DIDs. On the first getAll() request
  * the DIDs are resolved and converted into {@link TargetNode} objects. From then on, they are held in memory and cached.
  * <p>
+ * The directory of the file is watched for changes. After a change, the file is read again on the next getAll() request,
+ * and only added or changed DIDs are resolved again. Resolved DIDs are resolved again once the refresh interval has
+ * passed. DIDs that could not be resolved are retried with an exponential backoff, starting at
+ * {@value #INITIAL_RETRY_DELAY_SECONDS} seconds and capped at the refresh interval. A retry resolves only these DIDs,
+ * without reading the file again. If the file cannot be read, the nodes read before are kept and the file is read again
+ * on the next getAll() request.
+ * <p>
+ * DIDs are resolved concurrently on a fixed number of threads, with a timeout per DID, so that one slow host does not
+ * hold up the others. A resolution that times out is interrupted, and its thread is only reused once the resolution has
+ * actually ended. If a DID cannot be resolved again, its previous node is kept. The file is read as a stream, entry by
+ * entry, and resolutions start while it is still being read.
+ * <p>
+ * Nodes can also be inserted and removed at runtime. These changes are kept in a {@link TargetNodeStore} and take
+ * precedence over the file. {@link TargetNodeListener}s are told about every node that is added, changed or removed,
+ * whether through the file or at runtime.
+ * <p>
  * DIDs must contain a {@link org.eclipse.edc.iam.did.spi.document.Service} where the {@link Service#getType()} equals {@code ProtocolEndpoint}
  */
 public class LazyLoadNodeDirectory implements TargetNodeDirectory {
-    private static final TypeReference<Map<String, String>> MAP_TYPE = new TypeReference<>() {
-    };
+    public static final String DSP_PROTOCOL = "dataspace-protocol-http";
     private static final String PROTOCOL_ENDPOINT = "ProtocolEndpoint";
+    private static final long INITIAL_RETRY_DELAY_SECONDS = 5;
 
     private final ObjectMapper mapper;
     private final File participantListFile;
     private final DidResolverRegistry didResolverRegistry;
     private final Monitor monitor;
+    private final Duration resolutionTimeout;
+    private final Duration refreshInterval;
+    private final Semaphore resolutionPermits;
+    private final ExecutorService executor;
+    private final TargetNodeStore store;
+    private final List<TargetNodeListener> listeners = new CopyOnWriteArrayList<>();
 
-    public LazyLoadNodeDirectory(ObjectMapper mapper, File participantListFile, DidResolverRegistry didResolverRegistry, Monitor monitor) {
+    private volatile Map<String, Participant> participants = new LinkedHashMap<>();
+    private volatile List<TargetNode> nodes = List.of();
+    private volatile boolean stale = true;
+    private volatile Instant nextRefresh = Instant.MIN;
+    private volatile Instant nextRetry = Instant.MAX;
+    private WatchService watchService;
+
+    public LazyLoadNodeDirectory(ObjectMapper mapper, File participantListFile, DidResolverRegistry didResolverRegistry, Monitor monitor,
+                                 int resolutionParallelism, Duration resolutionTimeout, Duration refreshInterval, TargetNodeStore store) {
 
         this.mapper = mapper;
         this.participantListFile = participantListFile;
         this.didResolverRegistry = didResolverRegistry;
         this.monitor = monitor;
+        this.resolutionTimeout = resolutionTimeout;
+        this.refreshInterval = refreshInterval;
+        this.store = store;
+        this.resolutionPermits = new Semaphore(resolutionParallelism);
+        this.executor = Executors.newFixedThreadPool(resolutionParallelism, runnable -> {
+            var thread = new Thread(runnable, "participant-did-resolver");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @Override
     public List<TargetNode> getAll() {
-        try {
-            var entries = mapper.readValue(participantListFile, MAP_TYPE);
-
-            return entries.entrySet().stream()
-                    .map(e -> createNode(e.getKey(), e.getValue()))
-                    .filter(Objects::nonNull)
-                    .toList();
-        } catch (IOException e) {
-            throw new EdcException(e);
+        var now = Instant.now();
+        if (stale || now.isAfter(nextRefresh) || now.isAfter(nextRetry)) {
+            refresh();
         }
+        return store.apply(nodes);
     }
 
     @Override
     public void insert(TargetNode targetNode) {
-        //noop
+        store.insert(targetNode);
+        notifyListeners(listener -> listener.added(targetNode));
     }
 
     @Override
-    public TargetNode remove(String s) {
-        return null;
+    public TargetNode remove(String id) {
+        var listedNode = participants.values().stream()
+                .filter(participant -> participant.did().equals(id))
+                .findFirst();
+        var hidden = listedNode.isPresent() && !store.overrides(id);
+        var removed = store.remove(id, listedNode.isPresent());
+        if (removed == null && hidden) {
+            removed = listedNode.get().node();
+        }
+        if (removed != null) {
+            var node = removed;
+            notifyListeners(listener -> listener.removed(node));
+        }
+        return removed;
+    }
+
+    public void registerListener(TargetNodeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops watching the participant list file and resolving DIDs.
+     */
+    public synchronized void close() {
+        executor.shutdownNow();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                monitor.warning("Failed to stop watching %s".formatted(participantListFile), e);
+            }
+            watchService = null;
+        }
+    }
+
+    private synchronized void refresh() {
+        var now = Instant.now();
+        var reload = stale || now.isAfter(nextRefresh);
+        if (!reload && !now.isAfter(nextRetry)) {
+            return;
+        }
+
+        // start all resolutions while reading, then collect them, so that they run concurrently
+        var resolutions = new LinkedHashMap<String, CompletableFuture<TargetNode>>();
+        var entries = new LinkedHashMap<String, String>();
+        if (reload) {
+            watchParticipantListFile();
+            try {
+                // reset before reading, so that a change while reading triggers another refresh
+                stale = false;
+                readParticipantList((name, did) -> {
+                    entries.put(name, did);
+                    if (!isCurrent(participants.get(name), did, now)) {
+                        resolutions.put(name, resolveAsync(name, did));
+                    }
+                });
+            } catch (IOException e) {
+                // keep the nodes read before, and read the file again on the next request
+                stale = true;
+                resolutions.values().forEach(resolution -> resolution.cancel(true));
+                monitor.warning("Cannot read participant list %s, keeping the %d known nodes".formatted(participantListFile, nodes.size()), e);
+                return;
+            }
+        } else {
+            // the file has not changed, only the DIDs that are due for a retry are resolved
+            participants.forEach((name, participant) -> {
+                entries.put(name, participant.did());
+                if (participant.node() == null && !now.isBefore(participant.retryAt())) {
+                    resolutions.put(name, resolveAsync(name, participant.did()));
+                }
+            });
+        }
+
+        var previous = participants;
+        var refreshed = new LinkedHashMap<String, Participant>();
+        var earliestRetry = Instant.MAX;
+        for (var entry : entries.entrySet()) {
+            var known = previous.get(entry.getKey());
+            var resolution = resolutions.get(entry.getKey());
+            var participant = known;
+            if (resolution != null) {
+                var node = resolution.join();
+                if (node != null) {
+                    participant = Participant.resolved(entry.getValue(), node, now);
+                } else if (known == null || !known.did().equals(entry.getValue())) {
+                    participant = unresolved(entry.getValue(), 1, now);
+                } else if (known.node() == null) {
+                    participant = unresolved(entry.getValue(), known.failures() + 1, now);
+                }
+                // otherwise the previous node of the same DID is kept
+            }
+            if (participant.node() == null && participant.retryAt().isBefore(earliestRetry)) {
+                earliestRetry = participant.retryAt();
+            }
+            refreshed.put(entry.getKey(), participant);
+        }
+
+        participants = refreshed;
+        nextRetry = earliestRetry;
+        if (reload) {
+            nextRefresh = now.plus(refreshInterval);
+        }
+        var previousNodes = nodes;
+        nodes = refreshed.values().stream()
+                .map(Participant::node)
+                .filter(Objects::nonNull)
+                .toList();
+        publishChanges(previousNodes, nodes);
+    }
+
+    /**
+     * Reads the participant list, a JSON object of participant names and DIDs, one entry at a time.
+     */
+    private void readParticipantList(BiConsumer<String, String> entryConsumer) throws IOException {
+        try (var parser = mapper.getFactory().createParser(participantListFile)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("%s does not contain a JSON object".formatted(participantListFile));
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var name = parser.currentName();
+                var did = parser.nextTextValue();
+                if (did == null) {
+                    throw new IOException("DID of participant %s in %s is not a string".formatted(name, participantListFile));
+                }
+                entryConsumer.accept(name, did);
+            }
+        }
+    }
+
+    private void publishChanges(List<TargetNode> previousNodes, List<TargetNode> currentNodes) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        var previousById = new HashMap<String, TargetNode>();
+        previousNodes.forEach(node -> previousById.put(node.id(), node));
+        for (var node : currentNodes) {
+            var previousNode = previousById.remove(node.id());
+            if (!node.equals(previousNode) && !store.overrides(node.id())) {
+                notifyListeners(listener -> listener.added(node));
+            }
+        }
+        previousById.values().stream()
+                .filter(node -> !store.overrides(node.id()))
+                .forEach(node -> notifyListeners(listener -> listener.removed(node)));
+    }
+
+    private void notifyListeners(Consumer<TargetNodeListener> event) {
+        for (var listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                monitor.warning("Target node listener failed", e);
+            }
+        }
+    }
+
+    private boolean isCurrent(Participant known, String did, Instant now) {
+        if (known == null || !known.did().equals(did)) {
+            return false;
+        }
+        return known.node() != null ? now.isBefore(known.resolvedAt().plus(refreshInterval)) : now.isBefore(known.retryAt());
+    }
+
+    /**
+     * A participant whose DID could not be resolved, retried after {@link #INITIAL_RETRY_DELAY_SECONDS}, doubling with
+     * every failure up to the refresh interval.
+     */
+    private Participant unresolved(String did, int failures, Instant now) {
+        var delay = Duration.ofSeconds(INITIAL_RETRY_DELAY_SECONDS).multipliedBy(1L << Math.min(failures - 1, 20));
+        if (delay.compareTo(refreshInterval) > 0) {
+            delay = refreshInterval;
+        }
+        return new Participant(did, null, now, failures, now.plus(delay));
+    }
+
+    private CompletableFuture<TargetNode> resolveAsync(String name, String did) {
+        // a permit stands for a free resolver thread, so that the timeout of a resolution does not start while it waits
+        // in the queue of the executor. Waiting twice the timeout gives a resolution that holds a permit the time to
+        // time out and be interrupted.
+        try {
+            if (!resolutionPermits.tryAcquire(resolutionTimeout.toMillis() * 2, TimeUnit.MILLISECONDS)) {
+                monitor.warning("Could not resolve DID %s: all resolver threads are busy".formatted(did));
+                return CompletableFuture.completedFuture(null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.completedFuture(null);
+        }
+        var resolution = new Resolution(name, did);
+        try {
+            executor.execute(resolution);
+        } catch (RejectedExecutionException e) {
+            resolutionPermits.release();
+            return CompletableFuture.completedFuture(null);
+        }
+        return resolution.result
+                .orTimeout(resolutionTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(throwable -> {
+                    if (throwable instanceof TimeoutException) {
+                        resolution.interrupt();
+                    }
+                    monitor.warning("Could not resolve DID %s: %s".formatted(did, throwable instanceof TimeoutException ? "timed out" : throwable.getMessage()));
+                    return null;
+                });
+    }
+
+    private void watchParticipantListFile() {
+        if (watchService != null) {
+            return;
+        }
+        var directory = participantListFile.toPath().getParent();
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            // without a watch service the file is read only once
+            monitor.warning("Cannot watch %s for changes".formatted(participantListFile), e);
+            return;
+        }
+
+        var service = watchService;
+        var watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    var key = service.take();
+                    // any change in the directory counts, mounted config maps are replaced through symlinks
+                    key.pollEvents();
+                    stale = true;
+                    key.reset();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // stopped
+            }
+        }, "participant-list-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
     }
 
     private TargetNode createNode(String name, String did) {
@@ -85,7 +373,67 @@ public class LazyLoadNodeDirectory implements TargetNodeDirectory {
         }
         var document = didResult.getContent();
         var service = document.getService().stream().filter(s -> s.getType().equalsIgnoreCase(PROTOCOL_ENDPOINT)).findFirst();
-        return service.map(s -> new TargetNode(name, did, s.getServiceEndpoint(), List.of("dataspace-protocol-http")))
+        return service.map(s -> new TargetNode(name, did, s.getServiceEndpoint(), List.of(DSP_PROTOCOL)))
                 .orElse(null);
     }
+
+    /**
+     * A participant of the list, with its node if its DID was resolved.
+     *
+     * @param failures the number of failed resolutions in a row, if it has no node
+     * @param retryAt  when to resolve the DID again, if it has no node
+     */
+    private record Participant(String did, TargetNode node, Instant resolvedAt, int failures, Instant retryAt) {
+        static Participant resolved(String did, TargetNode node, Instant now) {
+            return new Participant(did, node, now, 0, null);
+        }
+    }
+
+    /**
+     * The resolution of one DID. It holds a resolution permit from when it is submitted until it has actually ended,
+     * also after its result has timed out.
+     */
+    private final class Resolution implements Runnable {
+        private final String name;
+        private final String did;
+        private final CompletableFuture<TargetNode> result = new CompletableFuture<>();
+        private Thread runner;
+
+        private Resolution(String name, String did) {
+            this.name = name;
+            this.did = did;
+        }
+
+        @Override
+        public void run() {
+            try {
+                synchronized (this) {
+                    if (result.isDone()) {
+                        // timed out before it started
+                        return;
+                    }
+                    runner = Thread.currentThread();
+                }
+                try {
+                    result.complete(createNode(name, did));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    synchronized (this) {
+                        runner = null;
+                        // an interrupt that came too late must not hit the next resolution on this thread
+                        Thread.interrupted();
+                    }
+                }
+            } finally {
+                resolutionPermits.release();
+            }
+        }
+
+        synchronized void interrupt() {
+            if (runner != null) {
+                runner.interrupt();
+            }
+        }
+    }
 }
@@ -0,0 +1,36 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.resolver;
+
+import org.eclipse.edc.crawler.spi.TargetNode;
+
+/**
+ * Is notified when the nodes of a {@link LazyLoadNodeDirectory} change, so that only the changed nodes need to be
+ * looked at.
+ */
+public interface TargetNodeListener {
+
+    /**
+     * A node was added, or an existing node with the same id changed.
+     */
+    default void added(TargetNode node) {
+    }
+
+    /**
+     * A node was removed.
+     */
+    default void removed(TargetNode node) {
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.resolver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.edc.crawler.spi.TargetNode;
+import org.eclipse.edc.spi.EdcException;
+import org.eclipse.edc.spi.monitor.Monitor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Holds the nodes that were inserted into or removed from a {@link LazyLoadNodeDirectory} at runtime, on top of the
+ * participants listed in the participant list file.
+ * <p>
+ * If a file is given, every change is written to it as one compact JSON document, and it is read again on startup.
+ * The file is replaced atomically, so that it is never left half-written. Without a file, changes are kept in memory
+ * only.
+ */
+public class TargetNodeStore {
+
+    private final ObjectMapper mapper;
+    private final Path file;
+    private final Monitor monitor;
+    private final Map<String, TargetNode> inserted = new LinkedHashMap<>();
+    private final Set<String> removed = new LinkedHashSet<>();
+
+    public TargetNodeStore(ObjectMapper mapper, Path file, Monitor monitor) {
+        this.mapper = mapper;
+        this.file = file;
+        this.monitor = monitor;
+        load();
+    }
+
+    /**
+     * Adds a node, or replaces the node with the same id.
+     */
+    public synchronized void insert(TargetNode node) {
+        inserted.put(node.id(), node);
+        removed.remove(node.id());
+        save();
+    }
+
+    /**
+     * Removes the node with the given id.
+     *
+     * @param id     the node id
+     * @param listed whether the participant list file contains the node, it is then hidden until inserted again
+     * @return the inserted node that was removed, or {@code null}
+     */
+    public synchronized TargetNode remove(String id, boolean listed) {
+        var node = inserted.remove(id);
+        var changed = node != null;
+        if (listed) {
+            changed |= removed.add(id);
+        }
+        if (changed) {
+            save();
+        }
+        return node;
+    }
+
+    /**
+     * Whether the node with the given id was inserted or removed at runtime, so that the participant list file does
+     * not decide about it.
+     */
+    public synchronized boolean overrides(String id) {
+        return inserted.containsKey(id) || removed.contains(id);
+    }
+
+    /**
+     * Applies the runtime changes to the nodes from the participant list file.
+     */
+    public synchronized List<TargetNode> apply(List<TargetNode> listed) {
+        if (inserted.isEmpty() && removed.isEmpty()) {
+            return listed;
+        }
+        var nodes = new ArrayList<TargetNode>(listed.size() + inserted.size());
+        for (var node : listed) {
+            if (!overrides(node.id())) {
+                nodes.add(node);
+            }
+        }
+        nodes.addAll(inserted.values());
+        return List.copyOf(nodes);
+    }
+
+    private void load() {
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            var snapshot = mapper.readValue(file.toFile(), Snapshot.class);
+            if (snapshot.inserted() != null) {
+                snapshot.inserted().forEach(node -> inserted.put(node.id(), node));
+            }
+            if (snapshot.removed() != null) {
+                removed.addAll(snapshot.removed());
+            }
+            monitor.debug("Loaded %d inserted and %d removed nodes from %s".formatted(inserted.size(), removed.size(), file));
+        } catch (IOException e) {
+            throw new EdcException("Cannot read node store %s".formatted(file), e);
+        }
+    }
+
+    private void save() {
+        if (file == null) {
+            return;
+        }
+        var temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            mapper.writeValue(temp.toFile(), new Snapshot(List.copyOf(inserted.values()), Set.copyOf(removed)));
+            Files.move(temp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new EdcException("Cannot write node store %s".formatted(file), e);
+        }
+    }
+
+    private record Snapshot(List<TargetNode> inserted, Set<String> removed) {
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.cache;
+
+import org.eclipse.edc.connector.controlplane.catalog.spi.Catalog;
+import org.eclipse.edc.connector.controlplane.catalog.spi.Dataset;
+import org.eclipse.edc.spi.query.Criterion;
+import org.eclipse.edc.spi.query.QuerySpec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.eclipse.edc.spi.query.Criterion.criterion;
+
+class CatalogIndexTest {
+
+    private final CatalogIndex index = new CatalogIndex();
+
+    @BeforeEach
+    void setup() {
+        // ds-00 .. ds-19 in two catalogs, with size = number and a tag that is "even" or "odd"
+        addCatalog("catalog-a", IntStream.range(0, 10));
+        addCatalog("catalog-b", IntStream.range(10, 20));
+    }
+
+    @Test
+    void query_equals() {
+        assertThat(ids(index.query(query(criterion("dataset.id", "=", "ds-03"))).orElseThrow())).containsExactly("ds-03");
+        assertThat(ids(index.query(query(criterion("dataset.size", "=", 7))).orElseThrow())).containsExactly("ds-07");
+    }
+
+    @Test
+    void query_in() {
+        var result = index.query(query(criterion("dataset.id", "in", List.of("ds-15", "ds-02", "unknown")))).orElseThrow();
+
+        assertThat(ids(result)).containsExactly("ds-02", "ds-15");
+        assertThat(result).extracting(Catalog::getId).containsExactly("catalog-a", "catalog-b");
+    }
+
+    @Test
+    void query_likePrefix() {
+        assertThat(ids(index.query(query(criterion("dataset.id", "like", "ds-1%"))).orElseThrow())).hasSize(10).allMatch(id -> id.startsWith("ds-1"));
+        assertThat(ids(index.query(query(criterion("dataset.id", "like", "ds-01"))).orElseThrow())).containsExactly("ds-01");
+    }
+
+    @Test
+    void query_range() {
+        assertThat(ids(index.query(query(criterion("dataset.size", "<", 3))).orElseThrow())).containsExactly("ds-00", "ds-01", "ds-02");
+        assertThat(ids(index.query(query(criterion("dataset.size", ">=", 18))).orElseThrow())).containsExactly("ds-18", "ds-19");
+        // not a number, so compared lexicographically
+        assertThat(ids(index.query(query(criterion("dataset.id", ">", "ds-17"))).orElseThrow())).containsExactly("ds-18", "ds-19");
+    }
+
+    @Test
+    void query_intersectsCriteria() {
+        var result = index.query(query(criterion("dataset.tag", "=", "even"), criterion("dataset.size", ">", 4), criterion("dataset.size", "<=", 12)));
+
+        assertThat(ids(result.orElseThrow())).containsExactly("ds-06", "ds-08", "ds-10", "ds-12");
+    }
+
+    @Test
+    void query_offsetAndLimitPageThroughDatasets() {
+        var result = index.query(QuerySpec.Builder.newInstance()
+                .filter(criterion("dataset.tag", "=", "odd"))
+                .offset(3)
+                .limit(4)
+                .build());
+
+        assertThat(ids(result.orElseThrow())).containsExactly("ds-07", "ds-09", "ds-11", "ds-13");
+    }
+
+    @Test
+    void query_notIndexed() {
+        assertThat(index.query(query(criterion("id", "=", "catalog-a")))).isEmpty();
+        assertThat(index.query(query(criterion("dataset.id", "like", "ds-%1")))).isEmpty();
+        assertThat(index.query(query(criterion("dataset.id", "!=", "ds-01")))).isEmpty();
+    }
+
+    @Test
+    void catalogChanged_reindexesChangedAndRemovedDatasets() {
+        index.catalogChanged("catalog-a", catalog("catalog-a", List.of()), List.of(dataset(4, "changed")), List.of("ds-02"));
+
+        assertThat(ids(index.query(query(criterion("dataset.tag", "=", "even"))).orElseThrow())).doesNotContain("ds-02", "ds-04");
+        assertThat(ids(index.query(query(criterion("dataset.tag", "=", "changed"))).orElseThrow())).containsExactly("ds-04");
+        assertThat(index.size()).isEqualTo(19);
+    }
+
+    @Test
+    void catalogRemoved_unindexesItsDatasets() {
+        index.catalogRemoved("catalog-a", catalog("catalog-a", List.of()));
+
+        assertThat(index.size()).isEqualTo(10);
+        assertThat(index.query(query(criterion("dataset.size", "<", 10))).orElseThrow()).isEmpty();
+    }
+
+    @Test
+    void catalogRemoved_keepsCatalogsWithSamePrefix() {
+        addCatalog("catalog-a2", IntStream.range(20, 25));
+
+        index.catalogRemoved("catalog-a", catalog("catalog-a", List.of()));
+
+        assertThat(index.size()).isEqualTo(15);
+        assertThat(ids(index.query(query(criterion("dataset.size", ">=", 10))).orElseThrow()))
+                .containsExactlyInAnyOrderElementsOf(IntStream.range(10, 25).mapToObj(CatalogIndexTest::id).toList());
+    }
+
+    @Test
+    void query_manyDistinctValues_collectsCandidatesInOrder() {
+        // more distinct values than are merged, but few datasets compared to the whole index
+        addCatalog("catalog-c", IntStream.range(100, 1100));
+
+        var criteria = List.of(criterion("dataset.size", ">=", 1000), criterion("dataset.tag", "=", "odd"));
+        var first = index.page(criteria, null, 25).orElseThrow();
+        var second = index.page(criteria, first.nextCursor(), 25).orElseThrow();
+
+        assertThat(ids(first.catalogs())).containsExactlyElementsOf(IntStream.range(500, 525).map(i -> 2 * i + 1).mapToObj(CatalogIndexTest::id).toList());
+        assertThat(ids(second.catalogs())).containsExactlyElementsOf(IntStream.range(525, 550).map(i -> 2 * i + 1).mapToObj(CatalogIndexTest::id).toList());
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void page_followsCursorUntilLastPage() {
+        var criteria = List.of(criterion("dataset.size", ">=", 5));
+        var ids = new ArrayList<String>();
+        String cursor = null;
+        var pages = 0;
+        do {
+            var page = index.page(criteria, cursor, 4).orElseThrow();
+            ids.addAll(ids(page.catalogs()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(4);
+        assertThat(ids).containsExactlyElementsOf(IntStream.range(5, 20).mapToObj(CatalogIndexTest::id).toList());
+    }
+
+    @Test
+    void page_withoutCriteria_returnsAllDatasets() {
+        var page = index.page(List.of(), null, 20).orElseThrow();
+
+        assertThat(ids(page.catalogs())).hasSize(20);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void page_continuesAfterRemovedDataset() {
+        var first = index.page(List.of(criterion("dataset.tag", "=", "even")), null, 2).orElseThrow();
+        assertThat(ids(first.catalogs())).containsExactly("ds-00", "ds-02");
+
+        index.catalogChanged("catalog-a", catalog("catalog-a", List.of()), List.of(), List.of("ds-02"));
+        var second = index.page(List.of(criterion("dataset.tag", "=", "even")), first.nextCursor(), 2).orElseThrow();
+
+        assertThat(ids(second.catalogs())).containsExactly("ds-04", "ds-06");
+    }
+
+    @Test
+    void page_seeksCursorInEveryMergedPostingList() {
+        // datasets with several of the requested values are in several posting lists, but must be on one page only
+        var datasets = IntStream.range(0, 6)
+                .mapToObj(i -> Dataset.Builder.newInstance().id("multi-" + i).property("tag", List.of("red", "green")).build())
+                .toList();
+        index.catalogChanged("catalog-c", catalog("catalog-c", datasets), datasets, List.of());
+        var criteria = List.of(criterion("dataset.tag", "in", List.of("red", "green")));
+
+        var first = index.page(criteria, null, 4).orElseThrow();
+        var second = index.page(criteria, first.nextCursor(), 4).orElseThrow();
+
+        assertThat(ids(first.catalogs())).containsExactly("multi-0", "multi-1", "multi-2", "multi-3");
+        assertThat(ids(second.catalogs())).containsExactly("multi-4", "multi-5");
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void page_malformedCursor() {
+        assertThatThrownBy(() -> index.page(List.of(), "not base64!", 5)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void addCatalog(String key, IntStream numbers) {
+        var datasets = numbers.mapToObj(i -> dataset(i, i % 2 == 0 ? "even" : "odd")).toList();
+        index.catalogChanged(key, catalog(key, datasets), datasets, List.of());
+    }
+
+    private static Dataset dataset(int number, String tag) {
+        return Dataset.Builder.newInstance()
+                .id(id(number))
+                .property("size", number)
+                .property("tag", tag)
+                .build();
+    }
+
+    private static Catalog catalog(String id, List<Dataset> datasets) {
+        return Catalog.Builder.newInstance().id(id).participantId("participant-" + id).datasets(datasets).build();
+    }
+
+    private static String id(int number) {
+        return "ds-%02d".formatted(number);
+    }
+
+    private static QuerySpec query(Criterion... criteria) {
+        return QuerySpec.Builder.newInstance().filter(List.of(criteria)).build();
+    }
+
+    private static List<String> ids(List<Catalog> catalogs) {
+        return catalogs.stream().flatMap(catalog -> catalog.getDatasets().stream()).map(Dataset::getId).toList();
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.cache;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atMostOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogResponseCacheTest {
+
+    private static final String QUERY = "{\"filterExpression\":[]}";
+    private static final MediaType JSON_LD = MediaType.valueOf("application/ld+json");
+
+    private final CatalogResponseCache cache = new CatalogResponseCache(100, mock(Monitor.class));
+
+    @Test
+    void repeatedQuery_isServedFromCache() throws IOException {
+        store(MediaType.APPLICATION_JSON, QUERY, "[1]", JSON_LD);
+
+        var response = hit(MediaType.APPLICATION_JSON, QUERY);
+
+        assertThat(response.getEntity()).isEqualTo("[1]".getBytes(StandardCharsets.UTF_8));
+        assertThat(response.getMediaType()).isEqualTo(JSON_LD);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void otherAcceptHeader_isNotServedFromCache() throws IOException {
+        store(MediaType.APPLICATION_JSON, QUERY, "[1]", MediaType.APPLICATION_JSON_TYPE);
+
+        assertThat(hit("application/ld+json", QUERY)).isNull();
+    }
+
+    @Test
+    void changedCatalogs_invalidateResponses() throws IOException {
+        store(MediaType.APPLICATION_JSON, QUERY, "[1]", MediaType.APPLICATION_JSON_TYPE);
+
+        cache.catalogRemoved("catalog", null);
+
+        assertThat(hit(MediaType.APPLICATION_JSON, QUERY)).isNull();
+        assertThat(cache.getCachedBytes()).isZero();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedResponses_whenBytesExceeded() throws IOException {
+        var body = "x".repeat(40);
+        store(MediaType.APPLICATION_JSON, "{\"q\":1}", body, MediaType.APPLICATION_JSON_TYPE);
+        store(MediaType.APPLICATION_JSON, "{\"q\":2}", body, MediaType.APPLICATION_JSON_TYPE);
+        // the first response becomes the most recently used one
+        assertThat(hit(MediaType.APPLICATION_JSON, "{\"q\":1}")).isNotNull();
+
+        store(MediaType.APPLICATION_JSON, "{\"q\":3}", body, MediaType.APPLICATION_JSON_TYPE);
+
+        assertThat(cache.getCachedBytes()).isEqualTo(80);
+        assertThat(hit(MediaType.APPLICATION_JSON, "{\"q\":2}")).isNull();
+        assertThat(hit(MediaType.APPLICATION_JSON, "{\"q\":1}")).isNotNull();
+        assertThat(hit(MediaType.APPLICATION_JSON, "{\"q\":3}")).isNotNull();
+    }
+
+    @Test
+    void responseLargerThanCache_isWrittenButNotStored() throws IOException {
+        var body = "x".repeat(101);
+
+        var written = store(MediaType.APPLICATION_JSON, QUERY, body, MediaType.APPLICATION_JSON_TYPE);
+
+        assertThat(written).isEqualTo(body);
+        assertThat(cache.getCachedBytes()).isZero();
+        assertThat(hit(MediaType.APPLICATION_JSON, QUERY)).isNull();
+    }
+
+    /**
+     * Runs a query that is not cached and writes the given body as its response.
+     *
+     * @return the body as written to the client
+     */
+    private String store(String accept, String query, String body, MediaType mediaType) throws IOException {
+        var properties = new HashMap<String, Object>();
+        var request = request(accept, query, properties);
+        cache.filter(request);
+        verify(request, never()).abortWith(any());
+
+        var client = new ByteArrayOutputStream();
+        var output = new AtomicReference<OutputStream>(client);
+        var context = mock(WriterInterceptorContext.class);
+        when(context.getProperty(anyString())).thenAnswer(i -> properties.get(i.<String>getArgument(0)));
+        when(context.getMediaType()).thenReturn(mediaType);
+        when(context.getOutputStream()).thenAnswer(i -> output.get());
+        doAnswer(i -> {
+            output.set(i.getArgument(0));
+            return null;
+        }).when(context).setOutputStream(any());
+        doAnswer(i -> {
+            output.get().write(body.getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(context).proceed();
+
+        cache.aroundWriteTo(context);
+        return client.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Runs a query.
+     *
+     * @return the cached response, or null if the query was not answered from the cache
+     */
+    private Response hit(String accept, String query) throws IOException {
+        var request = request(accept, query, new HashMap<>());
+        cache.filter(request);
+        var response = ArgumentCaptor.forClass(Response.class);
+        verify(request, atMostOnce()).abortWith(response.capture());
+        return response.getAllValues().isEmpty() ? null : response.getValue();
+    }
+
+    private static ContainerRequestContext request(String accept, String query, Map<String, Object> properties) {
+        var uriInfo = mock(UriInfo.class);
+        when(uriInfo.getPath()).thenReturn("/v1alpha/catalog/query");
+        when(uriInfo.getRequestUri()).thenReturn(URI.create("http://localhost/api/catalog/v1alpha/catalog/query"));
+        var request = mock(ContainerRequestContext.class);
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getUriInfo()).thenReturn(uriInfo);
+        when(request.getHeaderString(HttpHeaders.ACCEPT)).thenReturn(accept);
+        when(request.hasEntity()).thenReturn(true);
+        when(request.getEntityStream()).thenReturn(new ByteArrayInputStream(query.getBytes(StandardCharsets.UTF_8)));
+        doAnswer(i -> properties.put(i.getArgument(0), i.getArgument(1))).when(request).setProperty(anyString(), any());
+        return request;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.edc.connector.controlplane.catalog.spi.Catalog;
+import org.eclipse.edc.connector.controlplane.catalog.spi.Dataset;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.query.QueryResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.edc.catalog.spi.CatalogConstants.PROPERTY_ORIGINATOR;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class IncrementalCatalogCacheTest {
+
+    private static final String ORIGINATOR = "https://provider/api/dsp";
+
+    private final QueryResolver<Catalog> queryResolver = mock();
+    private final Monitor monitor = mock();
+    private final CatalogChangeListener listener = mock();
+    private final IncrementalCatalogCache cache = new IncrementalCatalogCache(new ObjectMapper(), queryResolver, new CatalogIndex(), monitor);
+
+    @BeforeEach
+    void setup() {
+        cache.registerListener(listener);
+    }
+
+    @Test
+    void save_sameCatalogAgain_isUnchanged() {
+        cache.save(catalog(dataset("ds-1", "a"), dataset("ds-2", "b")));
+        cache.save(catalog(dataset("ds-1", "a"), dataset("ds-2", "b")));
+
+        assertThat(cache.getChangedCount()).isEqualTo(1);
+        assertThat(cache.getUnchangedCount()).isEqualTo(1);
+        verify(listener, times(1)).catalogChanged(any(), any(), anyCollection(), anyCollection());
+    }
+
+    @Test
+    void save_reportsOnlyChangedAndRemovedDatasets() {
+        cache.save(catalog(dataset("ds-1", "a"), dataset("ds-2", "b"), dataset("ds-3", "c")));
+
+        cache.save(catalog(dataset("ds-1", "a"), dataset("ds-2", "changed"), dataset("ds-4", "new")));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Dataset>> changed = ArgumentCaptor.forClass(Collection.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> removed = ArgumentCaptor.forClass(Collection.class);
+        verify(listener, times(2)).catalogChanged(eq(ORIGINATOR), any(), changed.capture(), removed.capture());
+        assertThat(changed.getValue()).extracting(Dataset::getId).containsExactly("ds-2", "ds-4");
+        assertThat(removed.getValue()).containsExactly("ds-3");
+        assertThat(cache.getChangedDatasetCount()).isEqualTo(3 + 3);
+    }
+
+    @Test
+    void deleteExpired_removesCatalogsNotSavedSinceExpiry() {
+        cache.save(catalog(dataset("ds-1", "a")));
+
+        cache.expireAll();
+        cache.deleteExpired();
+
+        verify(listener).catalogRemoved(eq(ORIGINATOR), any());
+    }
+
+    @Test
+    void deleteExpired_keepsCatalogsSavedAgain() {
+        cache.save(catalog(dataset("ds-1", "a")));
+
+        cache.expireAll();
+        cache.save(catalog(dataset("ds-1", "a")));
+        cache.deleteExpired();
+
+        verify(listener, never()).catalogRemoved(any(), any());
+    }
+
+    @Test
+    void save_unhashableDataset_isTreatedAsChangedAndLogged() {
+        var unhashable = Dataset.Builder.newInstance().id("ds-1").property("value", new Object()).build();
+
+        cache.save(catalog(unhashable));
+        cache.save(catalog(unhashable));
+
+        assertThat(cache.getChangedCount()).isEqualTo(2);
+        verify(monitor, times(2)).warning(contains("Cannot hash dataset ds-1"));
+    }
+
+    private static Catalog catalog(Dataset... datasets) {
+        return Catalog.Builder.newInstance()
+                .id("catalog")
+                .participantId("provider")
+                .properties(Map.of(PROPERTY_ORIGINATOR, ORIGINATOR))
+                .datasets(List.of(datasets))
+                .build();
+    }
+
+    private static Dataset dataset(String id, String value) {
+        return Dataset.Builder.newInstance().id(id).property("value", value).build();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+
+package org.eclipse.edc.demo.participants.health;
+
+import org.eclipse.edc.crawler.spi.CrawlerAction;
+import org.eclipse.edc.crawler.spi.TargetNode;
+import org.eclipse.edc.crawler.spi.TargetNodeDirectory;
+import org.eclipse.edc.crawler.spi.model.UpdateRequest;
+import org.eclipse.edc.crawler.spi.model.UpdateResponse;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HealthAwareNodeDirectoryTest {
+
+    private final TargetNodeDirectory delegate = mock();
+    private final NodeHealthTracker tracker = new NodeHealthTracker(Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC),
+            Duration.ofSeconds(10), Duration.ofSeconds(60), mock(Monitor.class));
+    private final HealthAwareNodeDirectory directory = new HealthAwareNodeDirectory(delegate, tracker);
+
+    @Test
+    void getAll_fastestFirst_uncrawledBeforeAll() {
+        when(delegate.getAll()).thenReturn(List.of(node("slow"), node("fast"), node("new")));
+        tracker.recordSuccess("slow", Duration.ofMillis(900));
+        tracker.recordSuccess("fast", Duration.ofMillis(50));
+
+        assertThat(directory.getAll()).extracting(TargetNode::id).containsExactly("new", "fast", "slow");
+    }
+
+    @Test
+    void crawlerAction_recordsOutcomeOfEveryRequest() {
+        CrawlerAction succeeding = mock();
+        CrawlerAction failing = mock();
+        when(succeeding.apply(any())).thenReturn(CompletableFuture.completedFuture(new UpdateResponse("fast") {
+        }));
+        when(failing.apply(any())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("unreachable")));
+
+        new HealthRecordingCrawlerAction(succeeding, tracker).apply(new UpdateRequest("fast", "https://fast/api/dsp"));
+        var failed = new HealthRecordingCrawlerAction(failing, tracker).apply(new UpdateRequest("down", "https://down/api/dsp"));
+
+        assertThatThrownBy(failed::join).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(tracker.snapshot().get("fast").successes()).isEqualTo(1);
+        assertThat(tracker.snapshot().get("down").failures()).isEqualTo(1);
+        assertThat(tracker.isAvailable("down")).isFalse();
+    }
+
+    private static TargetNode node(String id) {
+        return new TargetNode(id, id, "https://" + id + "/api/dsp", List.of());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+
+package org.eclipse.edc.demo.participants.health;
+
+import org.eclipse.edc.crawler.spi.TargetNode;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NodeHealthTrackerTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+    private static final String NODE = "did:web:node";
+
+    private final Clock clock = mock();
+    private final Monitor monitor = mock();
+    private final NodeHealthTracker tracker = new NodeHealthTracker(clock, Duration.ofSeconds(10), Duration.ofSeconds(60), monitor);
+
+    @BeforeEach
+    void setup() {
+        when(clock.instant()).thenReturn(NOW);
+    }
+
+    @Test
+    void recordFailure_doublesBackoff() {
+        tracker.recordFailure(NODE, Duration.ofMillis(100));
+        assertThat(tracker.snapshot().get(NODE).retryAt()).isEqualTo(NOW.plusSeconds(10));
+
+        tracker.recordFailure(NODE, Duration.ofMillis(100));
+        assertThat(tracker.snapshot().get(NODE).retryAt()).isEqualTo(NOW.plusSeconds(20));
+
+        tracker.recordFailure(NODE, Duration.ofMillis(100));
+        assertThat(tracker.snapshot().get(NODE).retryAt()).isEqualTo(NOW.plusSeconds(40));
+    }
+
+    @Test
+    void recordFailure_capsBackoff() {
+        for (var i = 0; i < 30; i++) {
+            tracker.recordFailure(NODE, Duration.ofMillis(100));
+        }
+
+        assertThat(tracker.snapshot().get(NODE).retryAt()).isEqualTo(NOW.plusSeconds(60));
+        assertThat(tracker.snapshot().get(NODE).consecutiveFailures()).isEqualTo(30);
+    }
+
+    @Test
+    void isAvailable_onlyAfterBackoff() {
+        tracker.recordFailure(NODE, Duration.ofMillis(100));
+        assertThat(tracker.isAvailable(NODE)).isFalse();
+
+        when(clock.instant()).thenReturn(NOW.plusSeconds(10));
+        assertThat(tracker.isAvailable(NODE)).isTrue();
+    }
+
+    @Test
+    void recordSuccess_resetsBackoff() {
+        tracker.recordFailure(NODE, Duration.ofMillis(100));
+        tracker.recordFailure(NODE, Duration.ofMillis(100));
+
+        tracker.recordSuccess(NODE, Duration.ofMillis(100));
+
+        var health = tracker.snapshot().get(NODE);
+        assertThat(tracker.isAvailable(NODE)).isTrue();
+        assertThat(health.consecutiveFailures()).isZero();
+        assertThat(health.lastFailures()).isEqualTo(2);
+        verify(monitor).info(contains("reachable again after 2 failures"));
+
+        // the next failure starts over at the initial backoff
+        tracker.recordFailure(NODE, Duration.ofMillis(100));
+        assertThat(tracker.snapshot().get(NODE).retryAt()).isEqualTo(NOW.plusSeconds(10));
+    }
+
+    @Test
+    void latencyOf_isMovingAverage() {
+        tracker.recordSuccess(NODE, Duration.ofMillis(100));
+        tracker.recordSuccess(NODE, Duration.ofMillis(200));
+
+        assertThat(tracker.latencyOf(NODE)).isEqualTo(130);
+        assertThat(tracker.latencyOf("did:web:unknown")).isZero();
+    }
+
+    @Test
+    void removed_forgetsNode() {
+        tracker.recordFailure(NODE, Duration.ofMillis(100));
+
+        tracker.removed(new TargetNode("node", NODE, "https://node/api/dsp", List.of()));
+
+        assertThat(tracker.snapshot()).isEmpty();
+        assertThat(tracker.isAvailable(NODE)).isTrue();
+    }
+
+    @Test
+    void logHealth_countsBackedOffNodes() {
+        tracker.recordFailure(NODE, Duration.ofMillis(100));
+        tracker.recordSuccess("did:web:other", Duration.ofMillis(100));
+
+        tracker.logHealth();
+
+        verify(monitor).info("Node health: 2 nodes crawled, 1 backed off");
+    }
+}
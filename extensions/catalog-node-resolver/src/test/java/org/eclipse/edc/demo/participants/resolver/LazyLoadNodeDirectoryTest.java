@@ -0,0 +1,236 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.participants.resolver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.edc.crawler.spi.TargetNode;
+import org.eclipse.edc.iam.did.spi.document.DidDocument;
+import org.eclipse.edc.iam.did.spi.document.Service;
+import org.eclipse.edc.iam.did.spi.resolution.DidResolverRegistry;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.result.Result;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class LazyLoadNodeDirectoryTest {
+
+    private static final String FAST_DID = "did:web:fast";
+    private static final String SLOW_DID = "did:web:slow";
+    private static final String NEW_DID = "did:web:new";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final DidResolverRegistry didResolverRegistry = mock();
+    private final Monitor monitor = mock();
+    private File participantListFile;
+    private LazyLoadNodeDirectory directory;
+
+    @BeforeEach
+    void setup(@TempDir Path tempDir) {
+        participantListFile = tempDir.resolve("participants.json").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (directory != null) {
+            directory.close();
+        }
+    }
+
+    @Test
+    void getAll_resolvesParticipants() throws IOException {
+        writeParticipants("fast", FAST_DID);
+        when(didResolverRegistry.resolve(FAST_DID)).thenReturn(Result.success(didDocument(FAST_DID)));
+        directory = directory(4, Duration.ofSeconds(5));
+
+        assertThat(directory.getAll()).extracting(TargetNode::id).containsExactly(FAST_DID);
+    }
+
+    @Test
+    void getAll_interruptsResolutionThatTimesOut_andReusesItsThread() throws IOException {
+        writeParticipants("slow", SLOW_DID, "fast", FAST_DID);
+        var interrupted = new AtomicBoolean();
+        when(didResolverRegistry.resolve(SLOW_DID)).thenAnswer(invocation -> {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            return Result.failure("interrupted");
+        });
+        when(didResolverRegistry.resolve(FAST_DID)).thenReturn(Result.success(didDocument(FAST_DID)));
+        // one thread only: the fast DID can only be resolved once the slow resolution has really ended
+        directory = directory(1, Duration.ofMillis(200));
+
+        assertThat(directory.getAll()).extracting(TargetNode::id).containsExactly(FAST_DID);
+        assertThat(interrupted).isTrue();
+    }
+
+    @Test
+    void getAll_retriesUnresolvedDidsOnlyAfterBackoff() throws IOException {
+        writeParticipants("fast", FAST_DID, "slow", SLOW_DID);
+        when(didResolverRegistry.resolve(FAST_DID)).thenReturn(Result.success(didDocument(FAST_DID)));
+        when(didResolverRegistry.resolve(SLOW_DID)).thenReturn(Result.failure("not found"));
+        directory = directory(4, Duration.ofSeconds(5));
+
+        assertThat(directory.getAll()).extracting(TargetNode::id).containsExactly(FAST_DID);
+        assertThat(directory.getAll()).extracting(TargetNode::id).containsExactly(FAST_DID);
+
+        // the second call neither retries the unresolved DID before its backoff nor resolves the others again
+        verify(didResolverRegistry, times(1)).resolve(SLOW_DID);
+        verify(didResolverRegistry, times(1)).resolve(FAST_DID);
+    }
+
+    @Test
+    void getAll_afterFileChange_resolvesOnlyChangedDids() throws IOException, InterruptedException {
+        writeParticipants("fast", FAST_DID);
+        when(didResolverRegistry.resolve(FAST_DID)).thenReturn(Result.success(didDocument(FAST_DID)));
+        when(didResolverRegistry.resolve(NEW_DID)).thenReturn(Result.success(didDocument(NEW_DID)));
+        directory = directory(4, Duration.ofSeconds(5));
+        assertThat(directory.getAll()).extracting(TargetNode::id).containsExactly(FAST_DID);
+
+        writeParticipants("fast", FAST_DID, "new", NEW_DID);
+
+        // the file is watched, the change shows up on one of the next requests
+        var deadline = System.currentTimeMillis() + 10_000;
+        List<TargetNode> nodes;
+        do {
+            Thread.sleep(50);
+            nodes = directory.getAll();
+        } while (nodes.size() < 2 && System.currentTimeMillis() < deadline);
+
+        assertThat(nodes).extracting(TargetNode::id).containsExactly(FAST_DID, NEW_DID);
+        verify(didResolverRegistry, times(1)).resolve(FAST_DID);
+        verify(didResolverRegistry, times(1)).resolve(NEW_DID);
+    }
+
+    @Test
+    void getAll_unreadableFile_keepsKnownNodes() throws IOException {
+        writeParticipants("fast", FAST_DID);
+        when(didResolverRegistry.resolve(FAST_DID)).thenReturn(Result.success(didDocument(FAST_DID)));
+        when(didResolverRegistry.resolve(NEW_DID)).thenReturn(Result.success(didDocument(NEW_DID)));
+        // refreshed on every request, so that the broken file is read again
+        directory = new LazyLoadNodeDirectory(mapper, participantListFile, didResolverRegistry, monitor, 4, Duration.ofSeconds(5),
+                Duration.ZERO, new TargetNodeStore(mapper, null, monitor));
+        assertThat(directory.getAll()).extracting(TargetNode::id).containsExactly(FAST_DID);
+
+        Files.writeString(participantListFile.toPath(), "[ not a participant list");
+
+        assertThat(directory.getAll()).extracting(TargetNode::id).containsExactly(FAST_DID);
+        verify(monitor).warning(contains("Cannot read participant list"), any(IOException.class));
+
+        writeParticipants("new", NEW_DID);
+
+        assertThat(directory.getAll()).extracting(TargetNode::id).containsExactly(NEW_DID);
+    }
+
+    @Test
+    void insert_addsNodeAndNotifiesListeners() throws IOException {
+        writeParticipants("fast", FAST_DID);
+        when(didResolverRegistry.resolve(FAST_DID)).thenReturn(Result.success(didDocument(FAST_DID)));
+        directory = directory(4, Duration.ofSeconds(5));
+        TargetNodeListener listener = mock();
+        directory.registerListener(listener);
+        var inserted = new TargetNode("new", NEW_DID, "https://new/api/dsp", List.of(LazyLoadNodeDirectory.DSP_PROTOCOL));
+
+        directory.insert(inserted);
+
+        assertThat(directory.getAll()).extracting(TargetNode::id).containsExactly(FAST_DID, NEW_DID);
+        verify(listener).added(inserted);
+        verify(didResolverRegistry, never()).resolve(NEW_DID);
+    }
+
+    @Test
+    void remove_listedNode_hidesItAndNotifiesListeners() throws IOException {
+        writeParticipants("fast", FAST_DID, "slow", SLOW_DID);
+        when(didResolverRegistry.resolve(FAST_DID)).thenReturn(Result.success(didDocument(FAST_DID)));
+        when(didResolverRegistry.resolve(SLOW_DID)).thenReturn(Result.success(didDocument(SLOW_DID)));
+        directory = directory(4, Duration.ofSeconds(5));
+        directory.getAll();
+        TargetNodeListener listener = mock();
+        directory.registerListener(listener);
+
+        var removed = directory.remove(SLOW_DID);
+
+        assertThat(removed).extracting(TargetNode::id).isEqualTo(SLOW_DID);
+        assertThat(directory.getAll()).extracting(TargetNode::id).containsExactly(FAST_DID);
+        verify(listener).removed(removed);
+    }
+
+    @Test
+    void remove_insertedNode_dropsIt() throws IOException {
+        writeParticipants("fast", FAST_DID);
+        when(didResolverRegistry.resolve(FAST_DID)).thenReturn(Result.success(didDocument(FAST_DID)));
+        directory = directory(4, Duration.ofSeconds(5));
+        var inserted = new TargetNode("new", NEW_DID, "https://new/api/dsp", List.of(LazyLoadNodeDirectory.DSP_PROTOCOL));
+        directory.insert(inserted);
+
+        assertThat(directory.remove(NEW_DID)).isEqualTo(inserted);
+        assertThat(directory.getAll()).extracting(TargetNode::id).containsExactly(FAST_DID);
+    }
+
+    @Test
+    void remove_unknownNode_returnsNull() throws IOException {
+        writeParticipants("fast", FAST_DID);
+        when(didResolverRegistry.resolve(FAST_DID)).thenReturn(Result.success(didDocument(FAST_DID)));
+        directory = directory(4, Duration.ofSeconds(5));
+        directory.getAll();
+        TargetNodeListener listener = mock();
+        directory.registerListener(listener);
+
+        assertThat(directory.remove("did:web:unknown")).isNull();
+        verifyNoInteractions(listener);
+    }
+
+    private LazyLoadNodeDirectory directory(int parallelism, Duration timeout) {
+        return new LazyLoadNodeDirectory(mapper, participantListFile, didResolverRegistry, monitor, parallelism, timeout,
+                Duration.ofHours(1), new TargetNodeStore(mapper, null, monitor));
+    }
+
+    private void writeParticipants(String... namesAndDids) throws IOException {
+        var json = mapper.createObjectNode();
+        for (var i = 0; i < namesAndDids.length; i += 2) {
+            json.put(namesAndDids[i], namesAndDids[i + 1]);
+        }
+        Files.writeString(participantListFile.toPath(), mapper.writeValueAsString(json));
+    }
+
+    private static DidDocument didDocument(String did) {
+        return DidDocument.Builder.newInstance()
+                .id(did)
+                .service(List.of(new Service("dsp", "ProtocolEndpoint", "https://" + did.substring("did:web:".length()) + "/api/dsp")))
+                .build();
+    }
+}
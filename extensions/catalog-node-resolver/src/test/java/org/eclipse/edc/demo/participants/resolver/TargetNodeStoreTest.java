@@ -0,0 +1,100 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+
+package org.eclipse.edc.demo.participants.resolver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.edc.crawler.spi.TargetNode;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TargetNodeStoreTest {
+
+    private static final TargetNode LISTED = node("did:web:listed", "https://listed/api/dsp");
+    private static final TargetNode OTHER = node("did:web:other", "https://other/api/dsp");
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Monitor monitor = mock();
+
+    @Test
+    void apply_insertedNode_overridesListedNode() {
+        var store = new TargetNodeStore(mapper, null, monitor);
+        var changed = node(LISTED.id(), "https://moved/api/dsp");
+
+        store.insert(changed);
+
+        assertThat(store.overrides(LISTED.id())).isTrue();
+        assertThat(store.apply(List.of(LISTED, OTHER))).containsExactly(OTHER, changed);
+    }
+
+    @Test
+    void apply_removedListedNode_isHiddenUntilInsertedAgain() {
+        var store = new TargetNodeStore(mapper, null, monitor);
+
+        assertThat(store.remove(LISTED.id(), true)).isNull();
+        assertThat(store.apply(List.of(LISTED, OTHER))).containsExactly(OTHER);
+
+        store.insert(LISTED);
+        assertThat(store.apply(List.of(LISTED, OTHER))).containsExactly(OTHER, LISTED);
+    }
+
+    @Test
+    void remove_insertedNode_returnsIt() {
+        var store = new TargetNodeStore(mapper, null, monitor);
+        store.insert(OTHER);
+
+        assertThat(store.remove(OTHER.id(), false)).isEqualTo(OTHER);
+        assertThat(store.overrides(OTHER.id())).isFalse();
+        assertThat(store.apply(List.of(LISTED))).containsExactly(LISTED);
+    }
+
+    @Test
+    void changes_arePersistedAcrossRestart(@TempDir Path tempDir) {
+        var file = tempDir.resolve("nodes.json");
+        var store = new TargetNodeStore(mapper, file, monitor);
+        store.insert(OTHER);
+        store.remove(LISTED.id(), true);
+
+        var restarted = new TargetNodeStore(mapper, file, monitor);
+
+        assertThat(restarted.apply(List.of(LISTED))).containsExactly(OTHER);
+    }
+
+    @Test
+    void save_replacesFileWithoutLeavingTemporaryFile(@TempDir Path tempDir) throws IOException {
+        var file = tempDir.resolve("nodes.json");
+        var store = new TargetNodeStore(mapper, file, monitor);
+        store.insert(OTHER);
+        store.insert(LISTED);
+
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(file);
+        }
+        assertThat(mapper.readTree(file.toFile()).get("inserted")).hasSize(2);
+    }
+
+    private static TargetNode node(String id, String url) {
+        return new TargetNode(id, id, url, List.of(LazyLoadNodeDirectory.DSP_PROTOCOL));
+    }
+}
@@ -18,10 +18,16 @@ plugins {
 
 dependencies {
     implementation(libs.edc.dcp.core)
+    implementation(libs.edc.dcp)
     implementation(libs.edc.spi.identity.trust)
     implementation(libs.edc.spi.transform)
     implementation(libs.edc.spi.catalog)
     implementation(libs.edc.spi.identity.did)
     implementation(libs.edc.lib.jws2020)
     implementation(libs.edc.lib.transform)
+    implementation(libs.edc.lib.vc)
+    implementation(libs.edc.lib.vc.jwt)
+    implementation(libs.edc.lib.vc.ldp)
+
+    testImplementation(libs.edc.junit)
 }
@@ -24,15 +24,13 @@ class DataAccessCredentialScopeExtractor implements ScopeExtractor {
     public static final String DATA_PROCESSOR_CREDENTIAL_TYPE = "DataProcessorCredential";
     private static final String DATA_ACCESS_CONSTRAINT_PREFIX = "DataAccess.";
     private static final String CREDENTIAL_TYPE_NAMESPACE = "org.eclipse.edc.vc.type";
+    private static final Set<String> DATA_PROCESSOR_SCOPES = Set.of("%s:%s:read".formatted(CREDENTIAL_TYPE_NAMESPACE, DATA_PROCESSOR_CREDENTIAL_TYPE));
 
     @Override
     public Set<String> extractScopes(Object leftValue, Operator operator, Object rightValue, RequestPolicyContext context) {
-        Set<String> scopes = Set.of();
-        if (leftValue instanceof String leftOperand) {
-            if (leftOperand.startsWith(DATA_ACCESS_CONSTRAINT_PREFIX)) {
-                scopes = Set.of("%s:%s:read".formatted(CREDENTIAL_TYPE_NAMESPACE, DATA_PROCESSOR_CREDENTIAL_TYPE));
-            }
+        if (leftValue instanceof String leftOperand && leftOperand.startsWith(DATA_ACCESS_CONSTRAINT_PREFIX)) {
+            return DATA_PROCESSOR_SCOPES;
         }
-        return scopes;
+        return Set.of();
     }
 }
@@ -14,11 +14,13 @@
 
 package org.eclipse.edc.demo.dcp.core;
 
+import org.eclipse.edc.demo.dcp.verification.PreloadedDocumentLoader;
 import org.eclipse.edc.iam.identitytrust.spi.scope.ScopeExtractorRegistry;
 import org.eclipse.edc.iam.identitytrust.spi.verification.SignatureSuiteRegistry;
 import org.eclipse.edc.iam.verifiablecredentials.spi.VcConstants;
 import org.eclipse.edc.iam.verifiablecredentials.spi.model.Issuer;
 import org.eclipse.edc.iam.verifiablecredentials.spi.validation.TrustedIssuerRegistry;
+import org.eclipse.edc.jsonld.spi.JsonLd;
 import org.eclipse.edc.policy.context.request.spi.RequestCatalogPolicyContext;
 import org.eclipse.edc.policy.context.request.spi.RequestContractNegotiationPolicyContext;
 import org.eclipse.edc.policy.context.request.spi.RequestTransferProcessPolicyContext;
@@ -32,6 +34,7 @@ import org.eclipse.edc.spi.types.TypeManager;
 import org.eclipse.edc.transform.spi.TypeTransformerRegistry;
 import org.eclipse.edc.transform.transformer.edc.to.JsonValueToGenericTypeTransformer;
 
+import java.net.URISyntaxException;
 import java.util.Map;
 import java.util.Set;
 
@@ -55,6 +58,8 @@ public class DcpPatchExtension implements ServiceExtension {
     private ScopeExtractorRegistry scopeExtractorRegistry;
     @Inject
     private TypeTransformerRegistry typeTransformerRegistry;
+    @Inject
+    private JsonLd jsonLd;
 
     @Override
     public void initialize(ServiceExtensionContext context) {
@@ -63,6 +68,9 @@ public class DcpPatchExtension implements ServiceExtension {
         var suite = new Jws2020SignatureSuite(typeManager.getMapper(JSON_LD));
         signatureSuiteRegistry.register(VcConstants.JWS_2020_SIGNATURE_SUITE, suite);
 
+        // serve all known JSON-LD contexts from the classpath, so that expansion never needs to fetch them
+        registerCachedDocuments(context);
+
         // register dataspace issuer
         trustedIssuerRegistry.register(new Issuer("did:web:dataspace-issuer", Map.of()), WILDCARD);
         trustedIssuerRegistry.register(new Issuer("did:web:localhost%3A9876", Map.of()), WILDCARD); // for the standard credentials
@@ -83,4 +91,20 @@ public class DcpPatchExtension implements ServiceExtension {
 
         typeTransformerRegistry.register(new JsonValueToGenericTypeTransformer(typeManager, JSON_LD));
     }
+
+    private void registerCachedDocuments(ServiceExtensionContext context) {
+        var classLoader = getClass().getClassLoader();
+        PreloadedDocumentLoader.CONTEXTS.forEach((url, resource) -> {
+            var document = classLoader.getResource(resource);
+            if (document == null) {
+                context.getMonitor().warning("JSON-LD context %s is not bundled, resource %s not found".formatted(url, resource));
+                return;
+            }
+            try {
+                jsonLd.registerCachedDocument(url, document.toURI());
+            } catch (URISyntaxException e) {
+                context.getMonitor().warning("Could not register JSON-LD context %s".formatted(url), e);
+            }
+        });
+    }
 }
@@ -18,24 +18,23 @@ import org.eclipse.edc.policy.context.request.spi.RequestPolicyContext;
 import org.eclipse.edc.policy.engine.spi.PolicyValidatorRule;
 import org.eclipse.edc.policy.model.Policy;
 
-import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public class DefaultScopeMappingFunction implements PolicyValidatorRule<RequestPolicyContext> {
-    private final Set<String> defaultScopes;
+    private final List<String> defaultScopes;
 
     public DefaultScopeMappingFunction(Set<String> defaultScopes) {
-        this.defaultScopes = defaultScopes;
+        this.defaultScopes = List.copyOf(defaultScopes);
     }
 
     @Override
     public Boolean apply(Policy policy, RequestPolicyContext requestPolicyContext) {
+        // add to the scopes collected so far in place; copying and replacing the whole set is not needed for a union
         var requestScopeBuilder = requestPolicyContext.requestScopeBuilder();
-        var rq = requestScopeBuilder.build();
-        var existingScope = rq.getScopes();
-        var newScopes = new HashSet<>(defaultScopes);
-        newScopes.addAll(existingScope);
-        requestScopeBuilder.scopes(newScopes);
+        for (var scope : defaultScopes) {
+            requestScopeBuilder.scope(scope);
+        }
         return true;
     }
 }
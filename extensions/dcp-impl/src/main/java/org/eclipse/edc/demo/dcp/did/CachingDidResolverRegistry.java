@@ -0,0 +1,173 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.did;
+
+import org.eclipse.edc.iam.did.spi.document.DidDocument;
+import org.eclipse.edc.iam.did.spi.resolution.DidResolver;
+import org.eclipse.edc.iam.did.spi.resolution.DidResolverRegistry;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.result.Result;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link DidResolverRegistry} that remembers resolved DID documents, so that {@code did:web} documents are not fetched
+ * again for every catalog crawl and every presentation.
+ * <ul>
+ *     <li>A resolved document is served from memory for a time-to-live.</li>
+ *     <li>Once that has passed, it is still served for a while (stale-while-revalidate), while it is resolved again in
+ *     the background.</li>
+ *     <li>Failures are remembered for a short time only, so that unreachable hosts are not contacted on every call,
+ *     but recover quickly.</li>
+ * </ul>
+ * Resolvers are registered with, and resolutions delegated to, the wrapped registry.
+ */
+public class CachingDidResolverRegistry implements DidResolverRegistry {
+
+    private final DidResolverRegistry delegate;
+    private final int maxEntries;
+    private final Duration timeToLive;
+    private final Duration failureTimeToLive;
+    private final Duration staleWindow;
+    private final Clock clock;
+    private final Executor refreshExecutor;
+    private final Monitor monitor;
+    private final Map<String, Entry> entries;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingDidResolverRegistry(DidResolverRegistry delegate, int maxEntries, Duration timeToLive, Duration failureTimeToLive, Duration staleWindow,
+                                      Clock clock, Executor refreshExecutor, Monitor monitor) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+        this.failureTimeToLive = failureTimeToLive;
+        this.staleWindow = staleWindow;
+        this.clock = clock;
+        this.refreshExecutor = refreshExecutor;
+        this.monitor = monitor;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > CachingDidResolverRegistry.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public void register(DidResolver resolver) {
+        delegate.register(resolver);
+    }
+
+    @Override
+    public boolean isSupported(String didMethod) {
+        return delegate.isSupported(didMethod);
+    }
+
+    @Override
+    public Result<DidDocument> resolve(String didKey) {
+        var now = clock.instant();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(didKey);
+        }
+        if (entry != null) {
+            if (now.isBefore(entry.expiresAt())) {
+                hits.incrementAndGet();
+                return entry.result();
+            }
+            if (entry.result().succeeded() && now.isBefore(entry.expiresAt().plus(staleWindow))) {
+                staleHits.incrementAndGet();
+                refreshInBackground(didKey);
+                return entry.result();
+            }
+        }
+
+        misses.incrementAndGet();
+        return load(didKey);
+    }
+
+    /**
+     * Share of resolutions that were answered from memory, stale or not.
+     */
+    public double getHitRatio() {
+        var served = hits.get() + staleHits.get();
+        var total = served + misses.get();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getStaleHitCount() {
+        return staleHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private Result<DidDocument> load(String didKey) {
+        var result = delegate.resolve(didKey);
+        var expiresAt = clock.instant().plus(result.succeeded() ? timeToLive : failureTimeToLive);
+        synchronized (entries) {
+            var previous = entries.get(didKey);
+            // a failed refresh does not replace a document that may still be served stale
+            if (result.succeeded() || previous == null || previous.result().failed()) {
+                entries.put(didKey, new Entry(result, expiresAt));
+            }
+        }
+        return result;
+    }
+
+    private void refreshInBackground(String didKey) {
+        if (!refreshing.add(didKey)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(didKey).onFailure(f -> monitor.debug("Failed to refresh DID document %s: %s".formatted(didKey, f.getFailureDetail())));
+                } finally {
+                    refreshing.remove(didKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(didKey);
+        }
+    }
+
+    private record Entry(Result<DidDocument> result, Instant expiresAt) {
+    }
+}
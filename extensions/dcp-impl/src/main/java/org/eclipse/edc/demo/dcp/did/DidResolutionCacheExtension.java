@@ -0,0 +1,85 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.did;
+
+import org.eclipse.edc.iam.did.spi.resolution.DidResolverRegistry;
+import org.eclipse.edc.runtime.metamodel.annotation.Inject;
+import org.eclipse.edc.runtime.metamodel.annotation.Provides;
+import org.eclipse.edc.runtime.metamodel.annotation.Setting;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.system.ServiceExtension;
+import org.eclipse.edc.spi.system.ServiceExtensionContext;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Replaces the {@link DidResolverRegistry} with a {@link CachingDidResolverRegistry} that wraps it. Extensions that
+ * inject the registry after this one, e.g. the participant directory and the presentation verifier, resolve through
+ * the cache.
+ */
+@Provides(DidResolverRegistry.class)
+public class DidResolutionCacheExtension implements ServiceExtension {
+
+    @Setting(value = "Maximum number of DID resolutions kept in memory, 0 disables the cache", defaultValue = "1000")
+    public static final String DID_CACHE_SIZE_PROPERTY = "edc.mvd.did.cache.size";
+
+    @Setting(value = "Time in seconds a resolved DID document is served from memory", defaultValue = "300")
+    public static final String DID_CACHE_TTL_PROPERTY = "edc.mvd.did.cache.ttl";
+
+    @Setting(value = "Time in seconds a failed DID resolution is remembered", defaultValue = "10")
+    public static final String DID_CACHE_FAILURE_TTL_PROPERTY = "edc.mvd.did.cache.failure.ttl";
+
+    @Setting(value = "Time in seconds an expired DID document is still served while it is resolved again in the background", defaultValue = "60")
+    public static final String DID_CACHE_STALE_PROPERTY = "edc.mvd.did.cache.stale";
+
+    @Inject
+    private DidResolverRegistry didResolverRegistry;
+
+    private CachingDidResolverRegistry cachingRegistry;
+    private ExecutorService refreshExecutor;
+    private Monitor monitor;
+
+    @Override
+    public void initialize(ServiceExtensionContext context) {
+        monitor = context.getMonitor();
+
+        var size = context.getSetting(DID_CACHE_SIZE_PROPERTY, 1000);
+        if (size <= 0) {
+            context.registerService(DidResolverRegistry.class, didResolverRegistry);
+            return;
+        }
+
+        refreshExecutor = Executors.newFixedThreadPool(2);
+        cachingRegistry = new CachingDidResolverRegistry(didResolverRegistry, size,
+                Duration.ofSeconds(context.getSetting(DID_CACHE_TTL_PROPERTY, 300L)),
+                Duration.ofSeconds(context.getSetting(DID_CACHE_FAILURE_TTL_PROPERTY, 10L)),
+                Duration.ofSeconds(context.getSetting(DID_CACHE_STALE_PROPERTY, 60L)),
+                Clock.systemUTC(), refreshExecutor, monitor);
+        context.registerService(DidResolverRegistry.class, cachingRegistry);
+    }
+
+    @Override
+    public void shutdown() {
+        if (cachingRegistry != null) {
+            refreshExecutor.shutdownNow();
+            monitor.info("DID resolution cache: %d hits, %d stale hits, %d misses (hit ratio %.2f), %d entries"
+                    .formatted(cachingRegistry.getHitCount(), cachingRegistry.getStaleHitCount(), cachingRegistry.getMissCount(),
+                            cachingRegistry.getHitRatio(), cachingRegistry.size()));
+        }
+    }
+}
@@ -14,29 +14,81 @@
 
 package org.eclipse.edc.demo.dcp.policy;
 
-import org.eclipse.edc.iam.verifiablecredentials.spi.model.VerifiableCredential;
 import org.eclipse.edc.participant.spi.ParticipantAgent;
+import org.eclipse.edc.policy.engine.spi.PolicyContext;
+import org.eclipse.edc.policy.model.Operator;
 import org.eclipse.edc.spi.result.Result;
 
-import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
-public class AbstractCredentialEvaluationFunction {
-    private static final String VC_CLAIM = "vc";
-    protected static final String MVD_NAMESPACE = "https://w3id.org/mvd/credentials/";
+public abstract class AbstractCredentialEvaluationFunction {
+    private static final int MAX_PLANS = 1000;
 
-    protected Result<List<VerifiableCredential>> getCredentialList(ParticipantAgent agent) {
-        var vcListClaim = agent.getClaims().get(VC_CLAIM);
+    private final String constraintKey;
+    private final CredentialIndexCache credentialIndexCache;
+    private final PolicyDecisionCache decisionCache;
+    private final Map<PlanKey, ConstraintPlan> plans = new ConcurrentHashMap<>();
 
-        if (vcListClaim == null) {
-            return Result.failure("ParticipantAgent did not contain a '%s' claim.".formatted(VC_CLAIM));
+    protected AbstractCredentialEvaluationFunction(String constraintKey, CredentialIndexCache credentialIndexCache, PolicyDecisionCache decisionCache) {
+        this.constraintKey = constraintKey;
+        this.credentialIndexCache = credentialIndexCache;
+        this.decisionCache = decisionCache;
+    }
+
+    /**
+     * Compiles a constraint into a plan: operator and right operand are checked once, and the decision is reduced to a
+     * predicate over the credential index.
+     */
+    protected abstract ConstraintPlan compile(Operator operator, Object rightOperand);
+
+    /**
+     * The compiled plan for a constraint. Plans are compiled on first use, which is normally when the policy is
+     * validated on creation, and reused for every evaluation afterwards.
+     */
+    protected ConstraintPlan plan(Operator operator, Object rightOperand) {
+        var key = new PlanKey(operator, rightOperand);
+        var plan = plans.get(key);
+        if (plan == null) {
+            plan = compile(operator, rightOperand);
+            if (plans.size() < MAX_PLANS) {
+                plans.putIfAbsent(key, plan);
+            }
         }
-        if (!(vcListClaim instanceof List)) {
-            return Result.failure("ParticipantAgent contains a '%s' claim, but the type is incorrect. Expected %s, received %s.".formatted(VC_CLAIM, List.class.getName(), vcListClaim.getClass().getName()));
+        return plan;
+    }
+
+    protected Result<Void> validatePlan(Operator operator, Object rightOperand) {
+        var plan = plan(operator, rightOperand);
+        return plan.problem() == null ? Result.success() : Result.failure(plan.problem());
+    }
+
+    protected Result<CredentialIndex> getCredentialIndex(ParticipantAgent agent) {
+        return credentialIndexCache.get(agent);
+    }
+
+    /**
+     * Takes the decision of the plan on the credentials, or replays it from the decision cache if the same credentials
+     * were already evaluated against the same constraint in the same scope.
+     */
+    protected boolean decide(ConstraintPlan plan, CredentialIndex credentials, PolicyContext policyContext, Operator operator, Object rightOperand) {
+        return decisionCache.evaluate(credentials, policyContext.getClass(), constraintKey, operator, rightOperand, plan.decision());
+    }
+
+    /**
+     * A compiled constraint: either the problem that makes it invalid, or the decision to take on the credentials.
+     */
+    protected record ConstraintPlan(String problem, Predicate<CredentialIndex> decision) {
+        static ConstraintPlan invalid(String problem) {
+            return new ConstraintPlan(problem, credentials -> false);
         }
-        var vcList = (List<VerifiableCredential>) vcListClaim;
-        if (vcList.isEmpty()) {
-            return Result.failure("ParticipantAgent contains a '%s' claim but it did not contain any VerifiableCredentials.".formatted(VC_CLAIM));
+
+        static ConstraintPlan of(Predicate<CredentialIndex> decision) {
+            return new ConstraintPlan(null, decision);
         }
-        return Result.success(vcList);
+    }
+
+    private record PlanKey(Operator operator, Object rightOperand) {
     }
 }
@@ -0,0 +1,271 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.policy;
+
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.VerifiableCredential;
+import org.eclipse.edc.participant.spi.ParticipantAgent;
+import org.eclipse.edc.spi.result.Result;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Index over the verifiable credentials in the {@code vc} claim of a {@link ParticipantAgent}. It is built once per
+ * agent, i.e. once per request, so that policy functions do not scan the whole credential list for every constraint.
+ * The MVD claims the policy functions evaluate are extracted up front.
+ */
+public class CredentialIndex {
+    private static final String MVD_NAMESPACE = "https://w3id.org/mvd/credentials/";
+    private static final String VC_CLAIM = "vc";
+    private static final String MEMBERSHIP_CREDENTIAL_TYPE = "MembershipCredential";
+    private static final String DATAPROCESSOR_CREDENTIAL_TYPE = "DataProcessorCredential";
+    private static final String MEMBERSHIP_CLAIM = "membership";
+    private static final String SINCE_CLAIM = "since";
+    private static final String LEVEL_CLAIM = "level";
+    private static final String CONTRACT_VERSION_CLAIM = "contractVersion";
+
+    private final List<VerifiableCredential> credentials;
+    private final Map<String, List<VerifiableCredential>> byTypeSuffix = new ConcurrentHashMap<>();
+    private final List<Instant> membershipsSince;
+    private final Set<Object> dataAccessLevels;
+    private final Instant earliestExpiry;
+    private volatile String fingerprint;
+
+    private CredentialIndex(List<VerifiableCredential> credentials) {
+        this.credentials = credentials;
+        this.membershipsSince = extractMembershipsSince(ofType(MEMBERSHIP_CREDENTIAL_TYPE));
+        this.dataAccessLevels = extractDataAccessLevels(ofType(DATAPROCESSOR_CREDENTIAL_TYPE));
+        this.earliestExpiry = credentials.stream()
+                .flatMap(vc -> Stream.of(vc.getExpirationDate(), vc.getValidUntil()))
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+    }
+
+    /**
+     * Builds the index over the {@code vc} claim of the agent.
+     *
+     * @return the index, or a failure if the agent does not carry a non-empty list of credentials
+     */
+    @SuppressWarnings("unchecked")
+    public static Result<CredentialIndex> of(ParticipantAgent agent) {
+        var vcListClaim = agent.getClaims().get(VC_CLAIM);
+
+        if (vcListClaim == null) {
+            return Result.failure("ParticipantAgent did not contain a '%s' claim.".formatted(VC_CLAIM));
+        }
+        if (!(vcListClaim instanceof List)) {
+            return Result.failure("ParticipantAgent contains a '%s' claim, but the type is incorrect. Expected %s, received %s.".formatted(VC_CLAIM, List.class.getName(), vcListClaim.getClass().getName()));
+        }
+        var vcList = (List<VerifiableCredential>) vcListClaim;
+        if (vcList.isEmpty()) {
+            return Result.failure("ParticipantAgent contains a '%s' claim but it did not contain any VerifiableCredentials.".formatted(VC_CLAIM));
+        }
+        return Result.success(new CredentialIndex(List.copyOf(vcList)));
+    }
+
+    public List<VerifiableCredential> credentials() {
+        return credentials;
+    }
+
+    /**
+     * All credentials that have a type ending with the given suffix. The lookup is computed once per suffix.
+     */
+    public List<VerifiableCredential> ofType(String typeSuffix) {
+        return byTypeSuffix.computeIfAbsent(typeSuffix, suffix -> credentials.stream()
+                .filter(vc -> vc.getType().stream().anyMatch(t -> t.endsWith(suffix)))
+                .toList());
+    }
+
+    /**
+     * The {@code membership.since} dates of all membership credentials. Subjects with a missing or malformed date are
+     * left out.
+     */
+    public List<Instant> membershipsSince() {
+        return membershipsSince;
+    }
+
+    /**
+     * The {@code level} claims of all data processor credential subjects that also carry a {@code contractVersion}.
+     */
+    public Set<Object> dataAccessLevels() {
+        return dataAccessLevels;
+    }
+
+    /**
+     * A SHA-256 digest over a canonical form of the credentials: ids, issuers, types, validity, status and subject
+     * claims, with map entries in key order. Two indexes with the same fingerprint hold the same credentials, so a
+     * decision taken on one holds for the other. The digest is computed on first use.
+     */
+    public String fingerprint() {
+        var result = fingerprint;
+        if (result == null) {
+            var canonical = new Canonical();
+            for (var vc : credentials) {
+                canonical.write(vc.getId());
+                canonical.write(vc.getIssuer() != null ? Arrays.asList(vc.getIssuer().id(), vc.getIssuer().additionalProperties()) : null);
+                canonical.write(vc.getType());
+                canonical.write(Arrays.asList(vc.getIssuanceDate(), vc.getValidFrom(), vc.getExpirationDate(), vc.getValidUntil()));
+                for (var status : vc.getCredentialStatus()) {
+                    canonical.write(Arrays.asList(status.id(), status.type(), status.additionalProperties()));
+                }
+                for (var subject : vc.getCredentialSubject()) {
+                    canonical.write(subject.getId());
+                    canonical.write(subject.getClaims());
+                }
+            }
+            result = HexFormat.of().formatHex(sha256().digest(canonical.toByteArray()));
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * The next point in time after {@code now} at which a decision taken on these credentials may change: the earliest
+     * credential expiry, or a {@code membership.since} date that has not been reached yet.
+     *
+     * @return the point in time, or null if there is none
+     */
+    public Instant nextDecisionBoundary(Instant now) {
+        var boundary = earliestExpiry;
+        for (var since : membershipsSince) {
+            if (!since.isBefore(now) && (boundary == null || since.isBefore(boundary))) {
+                boundary = since;
+            }
+        }
+        return boundary;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Instant> extractMembershipsSince(List<VerifiableCredential> membershipCredentials) {
+        var since = new ArrayList<Instant>();
+        for (var credential : membershipCredentials) {
+            for (var subject : credential.getCredentialSubject()) {
+                if (!subject.getClaims().containsKey(MEMBERSHIP_CLAIM)) {
+                    continue;
+                }
+                if (subject.getClaim(MVD_NAMESPACE, MEMBERSHIP_CLAIM) instanceof Map<?, ?> membership && membership.get(SINCE_CLAIM) != null) {
+                    try {
+                        since.add(Instant.parse(membership.get(SINCE_CLAIM).toString()));
+                    } catch (DateTimeParseException ignored) {
+                        // not a valid membership
+                    }
+                }
+            }
+        }
+        return List.copyOf(since);
+    }
+
+    private static Set<Object> extractDataAccessLevels(List<VerifiableCredential> dataProcessorCredentials) {
+        var levels = new HashSet<>();
+        for (var credential : dataProcessorCredentials) {
+            for (var subject : credential.getCredentialSubject()) {
+                if (subject.getClaim(MVD_NAMESPACE, CONTRACT_VERSION_CLAIM) != null) {
+                    levels.add(subject.getClaim(MVD_NAMESPACE, LEVEL_CLAIM));
+                }
+            }
+        }
+        return Collections.unmodifiableSet(levels);
+    }
+
+    /**
+     * Writes claim values in a canonical binary form. Every value is tagged with its kind and strings and containers
+     * are length-prefixed, so that different values never produce the same bytes.
+     */
+    private static final class Canonical extends ByteArrayOutputStream {
+        private final DataOutputStream out = new DataOutputStream(this);
+
+        Canonical() {
+            super(1024);
+        }
+
+        void write(Object value) {
+            try {
+                writeValue(value);
+            } catch (IOException e) {
+                // writing to memory does not fail
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte('n');
+            } else if (value instanceof String string) {
+                writeString('s', string);
+            } else if (value instanceof Map<?, ?> map) {
+                out.writeByte('m');
+                out.writeInt(map.size());
+                var sorted = new TreeMap<String, Object>();
+                map.forEach((key, element) -> sorted.put(String.valueOf(key), element));
+                for (var entry : sorted.entrySet()) {
+                    writeString('s', entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else if (value instanceof Collection<?> collection) {
+                out.writeByte('l');
+                out.writeInt(collection.size());
+                for (var element : collection) {
+                    writeValue(element);
+                }
+            } else if (value instanceof Instant instant) {
+                out.writeByte('i');
+                out.writeLong(instant.getEpochSecond());
+                out.writeInt(instant.getNano());
+            } else if (value instanceof Number number) {
+                writeString('d', number.toString());
+            } else if (value instanceof Boolean bool) {
+                out.writeByte(bool ? 't' : 'f');
+            } else {
+                writeString('o', value.toString());
+            }
+        }
+
+        private void writeString(char kind, String value) throws IOException {
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeByte(kind);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
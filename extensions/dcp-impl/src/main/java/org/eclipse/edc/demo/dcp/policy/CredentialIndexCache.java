@@ -0,0 +1,45 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.policy;
+
+import org.eclipse.edc.participant.spi.ParticipantAgent;
+import org.eclipse.edc.spi.result.Result;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Holds the {@link CredentialIndex} of every {@link ParticipantAgent} that is currently being evaluated. A participant
+ * agent is created per request, so all policy functions evaluated for the same request share one index. Entries are
+ * dropped once the agent is no longer referenced.
+ * <p>
+ * The index is built outside the lock of the map, so that building the index of one agent does not block the lookups
+ * of the others. Two functions evaluated concurrently for the same agent may both build it, the first one is kept.
+ */
+public class CredentialIndexCache {
+
+    private final Map<ParticipantAgent, Result<CredentialIndex>> indexes = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public Result<CredentialIndex> get(ParticipantAgent agent) {
+        var index = indexes.get(agent);
+        if (index != null) {
+            return index;
+        }
+        var built = CredentialIndex.of(agent);
+        var existing = indexes.putIfAbsent(agent, built);
+        return existing != null ? existing : built;
+    }
+}
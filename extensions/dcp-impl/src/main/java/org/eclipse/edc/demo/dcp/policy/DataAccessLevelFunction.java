@@ -18,26 +18,26 @@ import org.eclipse.edc.participant.spi.ParticipantAgentPolicyContext;
 import org.eclipse.edc.policy.engine.spi.AtomicConstraintRuleFunction;
 import org.eclipse.edc.policy.model.Duty;
 import org.eclipse.edc.policy.model.Operator;
-
-import java.util.Objects;
+import org.eclipse.edc.spi.result.Result;
 
 public class DataAccessLevelFunction<C extends ParticipantAgentPolicyContext> extends AbstractCredentialEvaluationFunction implements AtomicConstraintRuleFunction<Duty, C> {
 
-    private static final String DATAPROCESSOR_CRED_TYPE = "DataProcessorCredential";
-
-    private DataAccessLevelFunction() {
+    public static final String DATA_ACCESS_LEVEL_CONSTRAINT_KEY = "DataAccess.level";
 
+    private DataAccessLevelFunction(CredentialIndexCache credentialIndexCache, PolicyDecisionCache decisionCache) {
+        super(DATA_ACCESS_LEVEL_CONSTRAINT_KEY, credentialIndexCache, decisionCache);
     }
 
-    public static <C extends ParticipantAgentPolicyContext> DataAccessLevelFunction<C> create() {
-        return new DataAccessLevelFunction<>() {
+    public static <C extends ParticipantAgentPolicyContext> DataAccessLevelFunction<C> create(CredentialIndexCache credentialIndexCache, PolicyDecisionCache decisionCache) {
+        return new DataAccessLevelFunction<>(credentialIndexCache, decisionCache) {
         };
     }
 
     @Override
     public boolean evaluate(Operator operator, Object rightOperand, Duty duty, C policyContext) {
-        if (!operator.equals(Operator.EQ)) {
-            policyContext.reportProblem("Cannot evaluate operator %s, only %s is supported".formatted(operator, Operator.EQ));
+        var plan = plan(operator, rightOperand);
+        if (plan.problem() != null) {
+            policyContext.reportProblem(plan.problem());
             return false;
         }
         var pa = policyContext.participantAgent();
@@ -46,24 +46,26 @@ public class DataAccessLevelFunction<C extends ParticipantAgentPolicyContext> ex
             return false;
         }
 
-        var credentialResult = getCredentialList(pa);
-        if (credentialResult.failed()) {
-            policyContext.reportProblem(credentialResult.getFailureDetail());
+        var indexResult = getCredentialIndex(pa);
+        if (indexResult.failed()) {
+            policyContext.reportProblem(indexResult.getFailureDetail());
             return false;
         }
 
-        return credentialResult.getContent()
-                .stream()
-                .filter(vc -> vc.getType().stream().anyMatch(t -> t.endsWith(DATAPROCESSOR_CRED_TYPE)))
-                .flatMap(credential -> credential.getCredentialSubject().stream())
-                .anyMatch(credentialSubject -> {
-                    var version = credentialSubject.getClaim(MVD_NAMESPACE, "contractVersion");
-                    var level = credentialSubject.getClaim(MVD_NAMESPACE, "level");
-
-                    return version != null && Objects.equals(level, rightOperand);
-                });
+        return decide(plan, indexResult.getContent(), policyContext, operator, rightOperand);
+    }
 
+    @Override
+    public Result<Void> validate(Operator operator, Object rightOperand, Duty duty) {
+        return validatePlan(operator, rightOperand);
+    }
 
+    @Override
+    protected ConstraintPlan compile(Operator operator, Object rightOperand) {
+        if (!operator.equals(Operator.EQ)) {
+            return ConstraintPlan.invalid("Cannot evaluate operator %s, only %s is supported".formatted(operator, Operator.EQ));
+        }
+        return ConstraintPlan.of(credentials -> credentials.dataAccessLevels().contains(rightOperand));
     }
 
 }
@@ -18,34 +18,29 @@ import org.eclipse.edc.participant.spi.ParticipantAgentPolicyContext;
 import org.eclipse.edc.policy.engine.spi.AtomicConstraintRuleFunction;
 import org.eclipse.edc.policy.model.Operator;
 import org.eclipse.edc.policy.model.Permission;
+import org.eclipse.edc.spi.result.Result;
 
 import java.time.Instant;
-import java.util.Map;
 
 public class MembershipCredentialEvaluationFunction<C extends ParticipantAgentPolicyContext> extends AbstractCredentialEvaluationFunction implements AtomicConstraintRuleFunction<Permission, C> {
     public static final String MEMBERSHIP_CONSTRAINT_KEY = "MembershipCredential";
 
-    private static final String MEMBERSHIP_CLAIM = "membership";
-    private static final String SINCE_CLAIM = "since";
     private static final String ACTIVE = "active";
 
-    private MembershipCredentialEvaluationFunction() {
+    private MembershipCredentialEvaluationFunction(CredentialIndexCache credentialIndexCache, PolicyDecisionCache decisionCache) {
+        super(MEMBERSHIP_CONSTRAINT_KEY, credentialIndexCache, decisionCache);
     }
 
-    public static <C extends ParticipantAgentPolicyContext> MembershipCredentialEvaluationFunction<C> create() {
-        return new MembershipCredentialEvaluationFunction<>() {
+    public static <C extends ParticipantAgentPolicyContext> MembershipCredentialEvaluationFunction<C> create(CredentialIndexCache credentialIndexCache, PolicyDecisionCache decisionCache) {
+        return new MembershipCredentialEvaluationFunction<>(credentialIndexCache, decisionCache) {
         };
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public boolean evaluate(Operator operator, Object rightOperand, Permission permission, C policyContext) {
-        if (!operator.equals(Operator.EQ)) {
-            policyContext.reportProblem("Invalid operator '%s', only accepts '%s'".formatted(operator, Operator.EQ));
-            return false;
-        }
-        if (!ACTIVE.equals(rightOperand)) {
-            policyContext.reportProblem("Right-operand must be equal to '%s', but was '%s'".formatted(ACTIVE, rightOperand));
+        var plan = plan(operator, rightOperand);
+        if (plan.problem() != null) {
+            policyContext.reportProblem(plan.problem());
             return false;
         }
 
@@ -54,21 +49,32 @@ public class MembershipCredentialEvaluationFunction<C extends ParticipantAgentPo
             policyContext.reportProblem("No ParticipantAgent found on context.");
             return false;
         }
-        var credentialResult = getCredentialList(pa);
-        if (credentialResult.failed()) {
-            policyContext.reportProblem(credentialResult.getFailureDetail());
+        var indexResult = getCredentialIndex(pa);
+        if (indexResult.failed()) {
+            policyContext.reportProblem(indexResult.getFailureDetail());
             return false;
         }
 
-        return credentialResult.getContent()
-                .stream()
-                .filter(vc -> vc.getType().stream().anyMatch(t -> t.endsWith(MEMBERSHIP_CONSTRAINT_KEY)))
-                .flatMap(vc -> vc.getCredentialSubject().stream().filter(cs -> cs.getClaims().containsKey(MEMBERSHIP_CLAIM)))
-                .anyMatch(credential -> {
-                    var membershipClaim = (Map<String, ?>) credential.getClaim(MVD_NAMESPACE, MEMBERSHIP_CLAIM);
-                    var membershipStartDate = Instant.parse(membershipClaim.get(SINCE_CLAIM).toString());
-                    return membershipStartDate.isBefore(Instant.now());
-                });
+        return decide(plan, indexResult.getContent(), policyContext, operator, rightOperand);
+    }
+
+    @Override
+    public Result<Void> validate(Operator operator, Object rightOperand, Permission permission) {
+        return validatePlan(operator, rightOperand);
+    }
+
+    @Override
+    protected ConstraintPlan compile(Operator operator, Object rightOperand) {
+        if (!operator.equals(Operator.EQ)) {
+            return ConstraintPlan.invalid("Invalid operator '%s', only accepts '%s'".formatted(operator, Operator.EQ));
+        }
+        if (!ACTIVE.equals(rightOperand)) {
+            return ConstraintPlan.invalid("Right-operand must be equal to '%s', but was '%s'".formatted(ACTIVE, rightOperand));
+        }
+        return ConstraintPlan.of(credentials -> {
+            var now = Instant.now();
+            return credentials.membershipsSince().stream().anyMatch(since -> since.isBefore(now));
+        });
     }
 
 }
@@ -0,0 +1,158 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+
+package org.eclipse.edc.demo.dcp.policy;
+
+import org.eclipse.edc.policy.model.Operator;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of constraint decisions. A decision is keyed by the {@link CredentialIndex#fingerprint() fingerprint}
+ * of the presented credentials, the scope and the constraint, so a counterparty that presents the same credentials
+ * again gets the cached decision, while any change to its credentials produces a new key.
+ * <p>
+ * Atomic constraint functions do not see the policy a constraint belongs to, so the constraint itself (its key,
+ * operator and right operand) identifies it. A decision is thereby shared by all policies with the same constraint.
+ * <p>
+ * An entry expires after a maximum time-to-live, or earlier when a credential expires or a {@code membership.since}
+ * date is reached, since either can change the outcome. The entries are spread over independently locked stripes, each
+ * evicting its least recently used entries, so that concurrent requests rarely wait for each other.
+ * <p>
+ * A lookup fingerprints all credentials of the request, which costs more than the set lookups the MVD functions decide
+ * with. The cache pays off only for functions whose decisions are more expensive than that.
+ */
+public class PolicyDecisionCache {
+
+    private static final int STRIPES = 16;
+
+    private final int maxEntries;
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final Stripe[] stripes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates the cache.
+     *
+     * @param maxEntries maximum number of decisions kept, 0 disables the cache
+     */
+    public PolicyDecisionCache(int maxEntries, Duration timeToLive, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        this.stripes = new Stripe[STRIPES];
+        var stripeEntries = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+        for (var i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeEntries);
+        }
+    }
+
+    /**
+     * Returns the cached decision on the constraint, or takes it with {@code decision} and caches it.
+     *
+     * @param scope the policy context the constraint is evaluated in
+     */
+    public boolean evaluate(CredentialIndex credentials, Class<?> scope, String constraint, Operator operator, Object rightOperand,
+                            Predicate<CredentialIndex> decision) {
+        if (maxEntries <= 0) {
+            return decision.test(credentials);
+        }
+
+        var key = new Key(credentials.fingerprint(), scope, constraint, operator, rightOperand);
+        var stripe = stripes[Math.floorMod(key.hashCode(), STRIPES)];
+        var now = clock.instant();
+        synchronized (stripe) {
+            var cached = stripe.get(key);
+            if (cached != null) {
+                if (now.isBefore(cached.expiresAt())) {
+                    hits.incrementAndGet();
+                    return cached.allowed();
+                }
+                stripe.remove(key);
+            }
+        }
+
+        misses.incrementAndGet();
+        var allowed = decision.test(credentials);
+
+        var expiresAt = now.plus(timeToLive);
+        var boundary = credentials.nextDecisionBoundary(now);
+        if (boundary != null && boundary.isBefore(expiresAt)) {
+            expiresAt = boundary;
+        }
+        if (now.isBefore(expiresAt)) {
+            synchronized (stripe) {
+                stripe.put(key, new Decision(allowed, expiresAt));
+            }
+        }
+        return allowed;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public int size() {
+        var size = 0;
+        for (var stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private record Key(String fingerprint, Class<?> scope, String constraint, Operator operator, Object rightOperand) {
+    }
+
+    private record Decision(boolean allowed, Instant expiresAt) {
+    }
+
+    private final class Stripe extends LinkedHashMap<Key, Decision> {
+        private final int maxEntries;
+
+        Stripe(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Decision> eldest) {
+            if (size() > maxEntries) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
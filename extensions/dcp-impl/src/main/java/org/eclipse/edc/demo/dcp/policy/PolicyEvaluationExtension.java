@@ -24,37 +24,69 @@ import org.eclipse.edc.policy.engine.spi.RuleBindingRegistry;
 import org.eclipse.edc.policy.model.Duty;
 import org.eclipse.edc.policy.model.Permission;
 import org.eclipse.edc.runtime.metamodel.annotation.Inject;
+import org.eclipse.edc.runtime.metamodel.annotation.Provides;
+import org.eclipse.edc.runtime.metamodel.annotation.Setting;
+import org.eclipse.edc.spi.monitor.Monitor;
 import org.eclipse.edc.spi.system.ServiceExtension;
 import org.eclipse.edc.spi.system.ServiceExtensionContext;
 
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.eclipse.edc.demo.dcp.policy.DataAccessLevelFunction.DATA_ACCESS_LEVEL_CONSTRAINT_KEY;
 import static org.eclipse.edc.demo.dcp.policy.MembershipCredentialEvaluationFunction.MEMBERSHIP_CONSTRAINT_KEY;
 import static org.eclipse.edc.policy.model.OdrlNamespace.ODRL_SCHEMA;
 
+@Provides(PolicyDecisionCache.class)
 public class PolicyEvaluationExtension implements ServiceExtension {
 
+    // off by default: fingerprinting the credentials of a request costs more than the decisions of the MVD functions
+    @Setting(value = "Maximum number of constraint decisions kept in the policy decision cache, 0 disables the cache", defaultValue = "0")
+    public static final String DECISION_CACHE_SIZE_PROPERTY = "edc.mvd.policy.decisioncache.size";
+
+    @Setting(value = "Maximum time in seconds a cached constraint decision is reused", defaultValue = "300")
+    public static final String DECISION_CACHE_TTL_PROPERTY = "edc.mvd.policy.decisioncache.ttl";
+
     @Inject
     private PolicyEngine policyEngine;
 
     @Inject
     private RuleBindingRegistry ruleBindingRegistry;
 
+    private PolicyDecisionCache decisionCache;
+    private Monitor monitor;
+
     @Override
     public void initialize(ServiceExtensionContext context) {
+        monitor = context.getMonitor();
 
-        bindPermissionFunction(MembershipCredentialEvaluationFunction.create(), TransferProcessPolicyContext.class, TransferProcessPolicyContext.TRANSFER_SCOPE, MEMBERSHIP_CONSTRAINT_KEY);
-        bindPermissionFunction(MembershipCredentialEvaluationFunction.create(), ContractNegotiationPolicyContext.class, ContractNegotiationPolicyContext.NEGOTIATION_SCOPE, MEMBERSHIP_CONSTRAINT_KEY);
-        bindPermissionFunction(MembershipCredentialEvaluationFunction.create(), CatalogPolicyContext.class, CatalogPolicyContext.CATALOG_SCOPE, MEMBERSHIP_CONSTRAINT_KEY);
+        // all functions share the same caches, so the credentials of a request are indexed only once, and a
+        // counterparty that comes back with the same credentials gets the decisions taken before
+        var credentialIndexCache = new CredentialIndexCache();
+        decisionCache = new PolicyDecisionCache(context.getSetting(DECISION_CACHE_SIZE_PROPERTY, 0),
+                Duration.ofSeconds(context.getSetting(DECISION_CACHE_TTL_PROPERTY, 300L)), Clock.systemUTC());
+        context.registerService(PolicyDecisionCache.class, decisionCache);
 
-        registerDataAccessLevelFunction();
+        bindPermissionFunction(MembershipCredentialEvaluationFunction.create(credentialIndexCache, decisionCache), TransferProcessPolicyContext.class, TransferProcessPolicyContext.TRANSFER_SCOPE, MEMBERSHIP_CONSTRAINT_KEY);
+        bindPermissionFunction(MembershipCredentialEvaluationFunction.create(credentialIndexCache, decisionCache), ContractNegotiationPolicyContext.class, ContractNegotiationPolicyContext.NEGOTIATION_SCOPE, MEMBERSHIP_CONSTRAINT_KEY);
+        bindPermissionFunction(MembershipCredentialEvaluationFunction.create(credentialIndexCache, decisionCache), CatalogPolicyContext.class, CatalogPolicyContext.CATALOG_SCOPE, MEMBERSHIP_CONSTRAINT_KEY);
+
+        registerDataAccessLevelFunction(credentialIndexCache);
 
     }
 
-    private void registerDataAccessLevelFunction() {
-        var accessLevelKey = "DataAccess.level";
+    @Override
+    public void shutdown() {
+        if (decisionCache != null && decisionCache.getMissCount() > 0) {
+            monitor.info("Policy decision cache: %d hits, %d misses, %d evictions, %d entries"
+                    .formatted(decisionCache.getHitCount(), decisionCache.getMissCount(), decisionCache.getEvictionCount(), decisionCache.size()));
+        }
+    }
 
-        bindDutyFunction(DataAccessLevelFunction.create(), TransferProcessPolicyContext.class, TransferProcessPolicyContext.TRANSFER_SCOPE, accessLevelKey);
-        bindDutyFunction(DataAccessLevelFunction.create(), ContractNegotiationPolicyContext.class, ContractNegotiationPolicyContext.NEGOTIATION_SCOPE, accessLevelKey);
-        bindDutyFunction(DataAccessLevelFunction.create(), CatalogPolicyContext.class, CatalogPolicyContext.CATALOG_SCOPE, accessLevelKey);
+    private void registerDataAccessLevelFunction(CredentialIndexCache credentialIndexCache) {
+        bindDutyFunction(DataAccessLevelFunction.create(credentialIndexCache, decisionCache), TransferProcessPolicyContext.class, TransferProcessPolicyContext.TRANSFER_SCOPE, DATA_ACCESS_LEVEL_CONSTRAINT_KEY);
+        bindDutyFunction(DataAccessLevelFunction.create(credentialIndexCache, decisionCache), ContractNegotiationPolicyContext.class, ContractNegotiationPolicyContext.NEGOTIATION_SCOPE, DATA_ACCESS_LEVEL_CONSTRAINT_KEY);
+        bindDutyFunction(DataAccessLevelFunction.create(credentialIndexCache, decisionCache), CatalogPolicyContext.class, CatalogPolicyContext.CATALOG_SCOPE, DATA_ACCESS_LEVEL_CONSTRAINT_KEY);
     }
 
     private <C extends PolicyContext> void bindPermissionFunction(AtomicConstraintRuleFunction<Permission, C> function, Class<C> contextClass, String scope, String constraintType) {
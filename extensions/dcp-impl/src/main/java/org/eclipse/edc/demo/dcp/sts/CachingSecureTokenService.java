@@ -0,0 +1,213 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.sts;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.eclipse.edc.iam.identitytrust.spi.SecureTokenService;
+import org.eclipse.edc.spi.iam.TokenRepresentation;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.result.Result;
+
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reuses self-issued ID tokens for repeated requests to the same counterparty. Tokens are keyed by their audience and
+ * the other caller-supplied claims, plus the requested access scope, so a token is only reused for exactly the request
+ * it was minted for. Per-token claims ({@code iat}, {@code exp}, {@code nbf}, {@code jti}) are not part of the key.
+ * <p>
+ * A cached token is handed out until a safety margin before it expires. Once half of that window has passed, the next
+ * hit triggers a refresh in the background, so that callers keep getting the current token instead of waiting for the
+ * STS. Tokens whose expiry cannot be determined are never cached.
+ * <p>
+ * A reused token also reuses its {@code jti}, and a counterparty that checks the {@code jti} against replays rejects
+ * the second use. EDC connectors do so for the self-issued tokens of DCP. So a token that carries a {@code jti} is only
+ * cached for the audiences that are known not to check it; all other tokens with a {@code jti} are minted per request.
+ */
+public class CachingSecureTokenService implements SecureTokenService {
+
+    private static final Set<String> PER_TOKEN_CLAIMS = Set.of("iat", "exp", "nbf", "jti");
+    private static final String AUDIENCE_CLAIM = "aud";
+
+    private final SecureTokenService delegate;
+    private final int maxEntries;
+    private final Duration expiryMargin;
+    private final Set<String> jtiReuseAudiences;
+    private final Clock clock;
+    private final Executor refreshExecutor;
+    private final Monitor monitor;
+    private final Map<Key, CachedToken> tokens;
+    private final Set<Key> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    /**
+     * Creates the cache.
+     *
+     * @param jtiReuseAudiences audiences for which tokens carrying a {@code jti} may be reused, because they are known
+     *                          not to check the {@code jti} against replays
+     */
+    public CachingSecureTokenService(SecureTokenService delegate, int maxEntries, Duration expiryMargin, Set<String> jtiReuseAudiences,
+                                     Clock clock, Executor refreshExecutor, Monitor monitor) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.expiryMargin = expiryMargin;
+        this.jtiReuseAudiences = Set.copyOf(jtiReuseAudiences);
+        this.clock = clock;
+        this.refreshExecutor = refreshExecutor;
+        this.monitor = monitor;
+        this.tokens = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedToken> eldest) {
+                return size() > CachingSecureTokenService.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Result<TokenRepresentation> createToken(Map<String, Object> claims, String bearerAccessScope) {
+        if (maxEntries <= 0) {
+            return delegate.createToken(claims, bearerAccessScope);
+        }
+
+        var key = Key.of(claims, bearerAccessScope);
+        var now = clock.instant();
+        CachedToken cached;
+        synchronized (tokens) {
+            cached = tokens.get(key);
+        }
+        if (cached != null && now.isBefore(cached.expiresAt())) {
+            hits.incrementAndGet();
+            if (!now.isBefore(cached.refreshAt())) {
+                refreshInBackground(key, claims, bearerAccessScope);
+            }
+            return Result.success(cached.token());
+        }
+
+        misses.incrementAndGet();
+        return mint(key, claims, bearerAccessScope);
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    public int size() {
+        synchronized (tokens) {
+            return tokens.size();
+        }
+    }
+
+    private Result<TokenRepresentation> mint(Key key, Map<String, Object> claims, String bearerAccessScope) {
+        var result = delegate.createToken(claims, bearerAccessScope);
+        if (result.failed()) {
+            return result;
+        }
+
+        var now = clock.instant();
+        var jwtClaims = claimsOf(result.getContent());
+        if (jwtClaims == null || jwtClaims.getJWTID() != null && !jtiReuseAudiences.contains(String.valueOf(claims.get(AUDIENCE_CLAIM)))) {
+            // the jti cannot be checked, or the audience may reject it when it sees it again
+            return result;
+        }
+        var expiry = expiryOf(result.getContent(), jwtClaims, now);
+        if (expiry != null) {
+            var expiresAt = expiry.minus(expiryMargin);
+            if (now.isBefore(expiresAt)) {
+                var refreshAt = now.plus(Duration.between(now, expiresAt).dividedBy(2));
+                synchronized (tokens) {
+                    tokens.put(key, new CachedToken(result.getContent(), refreshAt, expiresAt));
+                }
+            }
+        }
+        return result;
+    }
+
+    private void refreshInBackground(Key key, Map<String, Object> claims, String bearerAccessScope) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        // the caller may reuse its claim map, so the refresh works on a copy
+        var claimsCopy = Map.copyOf(claims);
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refreshes.incrementAndGet();
+                    mint(key, claimsCopy, bearerAccessScope)
+                            .onFailure(f -> monitor.warning("Failed to refresh cached self-issued token: " + f.getFailureDetail()));
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    /**
+     * The expiry of the token: {@code expiresIn} if the STS reported it, the {@code exp} claim of the JWT otherwise.
+     */
+    private static Instant expiryOf(TokenRepresentation token, JWTClaimsSet jwtClaims, Instant now) {
+        if (token.getExpiresIn() != null) {
+            return now.plusSeconds(token.getExpiresIn());
+        }
+        var expirationTime = jwtClaims.getExpirationTime();
+        return expirationTime == null ? null : expirationTime.toInstant();
+    }
+
+    private static JWTClaimsSet claimsOf(TokenRepresentation token) {
+        try {
+            return SignedJWT.parse(token.getToken()).getJWTClaimsSet();
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private record Key(Map<String, String> claims, String scope) {
+        static Key of(Map<String, Object> claims, String scope) {
+            var stableClaims = new TreeMap<String, String>();
+            claims.forEach((name, value) -> {
+                if (!PER_TOKEN_CLAIMS.contains(name)) {
+                    stableClaims.put(name, String.valueOf(value));
+                }
+            });
+            return new Key(stableClaims, scope);
+        }
+    }
+
+    private record CachedToken(TokenRepresentation token, Instant refreshAt, Instant expiresAt) {
+    }
+}
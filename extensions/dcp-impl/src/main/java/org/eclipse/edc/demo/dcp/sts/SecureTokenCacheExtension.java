@@ -0,0 +1,89 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.sts;
+
+import org.eclipse.edc.iam.identitytrust.spi.SecureTokenService;
+import org.eclipse.edc.runtime.metamodel.annotation.Inject;
+import org.eclipse.edc.runtime.metamodel.annotation.Provides;
+import org.eclipse.edc.runtime.metamodel.annotation.Setting;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.system.ServiceExtension;
+import org.eclipse.edc.spi.system.ServiceExtensionContext;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Replaces the {@link SecureTokenService} with a {@link CachingSecureTokenService} that wraps it. Declaring the service
+ * as provided makes the runtime initialize this extension after the actual STS client and before the identity service
+ * that consumes it.
+ * <p>
+ * The self-issued tokens of DCP always carry a {@code jti}, which the cache only reuses for the audiences listed in
+ * {@value #TOKEN_CACHE_JTI_REUSE_AUDIENCES_PROPERTY}. Without that list the cache could never store a token, so the
+ * STS client is then left undecorated.
+ */
+@Provides(SecureTokenService.class)
+public class SecureTokenCacheExtension implements ServiceExtension {
+
+    @Setting(value = "Maximum number of self-issued tokens kept for reuse, 0 disables the cache", defaultValue = "1000")
+    public static final String TOKEN_CACHE_SIZE_PROPERTY = "edc.mvd.sts.tokencache.size";
+
+    @Setting(value = "Time in seconds before its expiry at which a cached self-issued token is no longer handed out", defaultValue = "30")
+    public static final String TOKEN_CACHE_MARGIN_PROPERTY = "edc.mvd.sts.tokencache.margin";
+
+    @Setting(value = "Comma-separated audiences (counterparty DIDs) that do not check the jti of self-issued tokens. " +
+            "Tokens carrying a jti are only reused for these audiences, without any the cache is not installed", defaultValue = "")
+    public static final String TOKEN_CACHE_JTI_REUSE_AUDIENCES_PROPERTY = "edc.mvd.sts.tokencache.jti.reuse.audiences";
+
+    @Inject
+    private SecureTokenService secureTokenService;
+
+    private CachingSecureTokenService tokenCache;
+    private ExecutorService refreshExecutor;
+    private Monitor monitor;
+
+    @Override
+    public void initialize(ServiceExtensionContext context) {
+        monitor = context.getMonitor();
+
+        var size = context.getSetting(TOKEN_CACHE_SIZE_PROPERTY, 1000);
+        var jtiReuseAudiences = Arrays.stream(context.getSetting(TOKEN_CACHE_JTI_REUSE_AUDIENCES_PROPERTY, "").split(","))
+                .map(String::trim)
+                .filter(audience -> !audience.isEmpty())
+                .collect(Collectors.toSet());
+        if (size <= 0 || jtiReuseAudiences.isEmpty()) {
+            context.registerService(SecureTokenService.class, secureTokenService);
+            return;
+        }
+
+        refreshExecutor = Executors.newSingleThreadExecutor();
+        tokenCache = new CachingSecureTokenService(secureTokenService, size,
+                Duration.ofSeconds(context.getSetting(TOKEN_CACHE_MARGIN_PROPERTY, 30L)), jtiReuseAudiences, Clock.systemUTC(), refreshExecutor, monitor);
+        context.registerService(SecureTokenService.class, tokenCache);
+    }
+
+    @Override
+    public void shutdown() {
+        if (tokenCache != null) {
+            refreshExecutor.shutdownNow();
+            monitor.info("Self-issued token cache: %d hits, %d misses, %d background refreshes, %d entries"
+                    .formatted(tokenCache.getHitCount(), tokenCache.getMissCount(), tokenCache.getRefreshCount(), tokenCache.size()));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.verification;
+
+import com.nimbusds.jwt.SignedJWT;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.VerifiablePresentationContainer;
+import org.eclipse.edc.iam.verifiablecredentials.spi.validation.PresentationVerifier;
+import org.eclipse.edc.spi.result.Result;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Remembers presentations whose proofs have been verified, keyed by the SHA-256 digest of the raw presentation. A
+ * counterparty that presents the exact same presentation again skips the signature checks and the DID resolution of
+ * the presentation and credential proofs.
+ * <p>
+ * Only successful verifications are cached. An entry expires after a maximum time-to-live, or earlier when the
+ * presentation token or one of the contained credentials expires. Issuer trust, revocation and validity checks are not
+ * part of proof verification, so they still run for every request.
+ */
+public class CachingPresentationVerifier implements PresentationVerifier {
+
+    private final PresentationVerifier delegate;
+    private final int maxEntries;
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final Map<String, Instant> verified;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public CachingPresentationVerifier(PresentationVerifier delegate, int maxEntries, Duration timeToLive, Clock clock) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Instant> eldest) {
+                return size() > CachingPresentationVerifier.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Result<Void> verifyPresentation(VerifiablePresentationContainer container) {
+        if (maxEntries <= 0 || container.rawVp() == null) {
+            return delegate.verifyPresentation(container);
+        }
+
+        var digest = digest(container.rawVp());
+        var now = clock.instant();
+        synchronized (verified) {
+            var expiresAt = verified.get(digest);
+            if (expiresAt != null && now.isBefore(expiresAt)) {
+                hits.incrementAndGet();
+                return Result.success();
+            }
+        }
+
+        misses.incrementAndGet();
+        var result = delegate.verifyPresentation(container);
+        if (result.succeeded()) {
+            var expiresAt = expiryOf(container, now.plus(timeToLive));
+            if (now.isBefore(expiresAt)) {
+                synchronized (verified) {
+                    verified.put(digest, expiresAt);
+                }
+            }
+        }
+        return result;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (verified) {
+            return verified.size();
+        }
+    }
+
+    /**
+     * The earliest of {@code latest}, the {@code exp} claim of a JWT presentation and the expiry of all contained
+     * credentials.
+     */
+    private static Instant expiryOf(VerifiablePresentationContainer container, Instant latest) {
+        var expiry = latest;
+        var presentationExpiry = jwtExpiry(container.rawVp());
+        if (presentationExpiry != null && presentationExpiry.isBefore(expiry)) {
+            expiry = presentationExpiry;
+        }
+        if (container.presentation() != null) {
+            var credentialExpiry = container.presentation().getCredentials().stream()
+                    .flatMap(vc -> Stream.of(vc.getExpirationDate(), vc.getValidUntil()))
+                    .filter(Objects::nonNull)
+                    .min(Instant::compareTo)
+                    .orElse(null);
+            if (credentialExpiry != null && credentialExpiry.isBefore(expiry)) {
+                expiry = credentialExpiry;
+            }
+        }
+        return expiry;
+    }
+
+    private static Instant jwtExpiry(String rawVp) {
+        if (rawVp.startsWith("{")) {
+            return null;
+        }
+        try {
+            var expirationTime = SignedJWT.parse(rawVp).getJWTClaimsSet().getExpirationTime();
+            return expirationTime == null ? null : expirationTime.toInstant();
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static String digest(String rawVp) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(rawVp.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
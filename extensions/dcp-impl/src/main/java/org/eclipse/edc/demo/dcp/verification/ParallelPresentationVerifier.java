@@ -0,0 +1,131 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.verification;
+
+import org.eclipse.edc.iam.identitytrust.spi.verification.CredentialVerifier;
+import org.eclipse.edc.iam.identitytrust.spi.verification.VerifierContext;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.VerifiablePresentationContainer;
+import org.eclipse.edc.iam.verifiablecredentials.spi.validation.PresentationVerifier;
+import org.eclipse.edc.spi.result.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Verifies a presentation like the upstream multi-format verifier does, but verifies the embedded credentials in
+ * parallel on a bounded {@link ForkJoinPool}.
+ * <p>
+ * The presentation itself is verified first, with a context that only collects the embedded credentials instead of
+ * verifying them. The collected credentials are then verified concurrently. Once a credential fails, credentials that
+ * have not started yet are skipped. The reported failure is that of the first failed credential in presentation order,
+ * so the outcome does not depend on scheduling.
+ */
+public class ParallelPresentationVerifier implements PresentationVerifier {
+
+    private final List<CredentialVerifier> verifiers;
+    private final VerifierContext context;
+    private final ForkJoinPool pool;
+
+    public ParallelPresentationVerifier(String audience, ForkJoinPool pool, CredentialVerifier... verifiers) {
+        this.verifiers = List.of(verifiers);
+        this.context = VerifierContext.Builder.newInstance().verifiers(this.verifiers).audience(audience).build();
+        this.pool = pool;
+    }
+
+    @Override
+    public Result<Void> verifyPresentation(VerifiablePresentationContainer container) {
+        var rawVp = container.rawVp();
+        var verifier = verifiers.stream().filter(v -> v.canHandle(rawVp)).findFirst().orElse(null);
+        if (verifier == null) {
+            // let the context report the unsupported format
+            return context.verify(rawVp);
+        }
+
+        var credentials = Collections.synchronizedList(new ArrayList<String>());
+        var collectingContext = VerifierContext.Builder.newInstance()
+                .verifier(new CollectingVerifier(credentials))
+                .audience(context.getAudience())
+                .build();
+        var presentationResult = verifier.verify(rawVp, collectingContext);
+        if (presentationResult.failed()) {
+            return presentationResult;
+        }
+
+        return verifyCredentials(List.copyOf(credentials));
+    }
+
+    private Result<Void> verifyCredentials(List<String> credentials) {
+        if (credentials.size() <= 1) {
+            return credentials.isEmpty() ? Result.success() : context.verify(credentials.get(0));
+        }
+
+        var failed = new AtomicBoolean();
+        var tasks = new ArrayList<Callable<Result<Void>>>(credentials.size());
+        for (var credential : credentials) {
+            tasks.add(() -> {
+                if (failed.get()) {
+                    return null;
+                }
+                var result = context.verify(credential);
+                if (result.failed()) {
+                    failed.set(true);
+                }
+                return result;
+            });
+        }
+
+        List<Future<Result<Void>>> futures = pool.invokeAll(tasks);
+        for (var future : futures) {
+            var result = await(future);
+            if (result != null && result.failed()) {
+                return result;
+            }
+        }
+        return Result.success();
+    }
+
+    private static Result<Void> await(Future<Result<Void>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.failure("Interrupted while verifying credentials");
+        } catch (ExecutionException e) {
+            return Result.failure("Failed to verify credential: " + e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Accepts every credential it is handed and records it for later verification.
+     */
+    private record CollectingVerifier(List<String> credentials) implements CredentialVerifier {
+        @Override
+        public boolean canHandle(String rawInput) {
+            return true;
+        }
+
+        @Override
+        public Result<Void> verify(String rawInput, VerifierContext context) {
+            credentials.add(rawInput);
+            return Result.success();
+        }
+    }
+}
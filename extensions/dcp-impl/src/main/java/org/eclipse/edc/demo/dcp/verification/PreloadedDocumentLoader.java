@@ -0,0 +1,110 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.verification;
+
+import com.apicatalog.jsonld.JsonLdError;
+import com.apicatalog.jsonld.JsonLdErrorCode;
+import com.apicatalog.jsonld.document.Document;
+import com.apicatalog.jsonld.document.JsonDocument;
+import com.apicatalog.jsonld.http.media.MediaType;
+import com.apicatalog.jsonld.loader.DocumentLoader;
+import com.apicatalog.jsonld.loader.DocumentLoaderOptions;
+import org.eclipse.edc.spi.monitor.Monitor;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSON-LD document loader for linked-data proofs. The contexts used by the MVD credentials are bundled on the classpath
+ * and parsed once at startup; every later lookup is served from memory. Documents that are not bundled are only
+ * fetched if a remote loader is given; the most recently used of them are kept as well. Without a remote loader,
+ * verification never touches the network.
+ */
+public class PreloadedDocumentLoader implements DocumentLoader {
+
+    /**
+     * The contexts the MVD credentials and presentations refer to, and the classpath resources they are bundled in. The
+     * ODRL context is shipped with the EDC JSON-LD extension.
+     */
+    public static final Map<String, String> CONTEXTS = Map.of(
+            "https://www.w3.org/2018/credentials/v1", "document/credentials.v1.jsonld",
+            "https://www.w3.org/ns/credentials/v2", "document/credentials.v2.jsonld",
+            "https://www.w3.org/ns/did/v1", "document/did.v1.jsonld",
+            "https://w3id.org/security/suites/jws-2020/v1", "jws2020.jsonld",
+            "https://w3id.org/vc/status-list/2021/v1", "statuslist2021.json",
+            "https://w3id.org/dspace-dcp/v1.0/dcp.jsonld", "document/dcp.v1.0.jsonld",
+            "https://w3id.org/tractusx-trust/v0.8", "document/dcp.v08.jsonld",
+            "http://www.w3.org/ns/odrl.jsonld", "document/odrl.jsonld"
+    );
+
+    /**
+     * Maximum number of remotely loaded documents that are kept.
+     */
+    public static final int MAX_REMOTE_DOCUMENTS = 100;
+
+    private final Map<URI, Document> documents = new HashMap<>();
+    private final Map<URI, Document> remoteDocuments = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<URI, Document> eldest) {
+            return size() > MAX_REMOTE_DOCUMENTS;
+        }
+    });
+    private final DocumentLoader remoteLoader;
+
+    /**
+     * Creates a loader with all bundled contexts preloaded.
+     *
+     * @param remoteLoader loader for documents that are not bundled, or {@code null} to reject them
+     */
+    public PreloadedDocumentLoader(DocumentLoader remoteLoader, Monitor monitor) {
+        this.remoteLoader = remoteLoader;
+        var classLoader = getClass().getClassLoader();
+        CONTEXTS.forEach((url, resource) -> {
+            try (var stream = classLoader.getResourceAsStream(resource)) {
+                if (stream == null) {
+                    monitor.warning("JSON-LD context %s is not bundled, resource %s not found".formatted(url, resource));
+                    return;
+                }
+                var document = JsonDocument.of(MediaType.JSON_LD, stream);
+                document.setDocumentUrl(URI.create(url));
+                documents.put(URI.create(url), document);
+            } catch (IOException | JsonLdError e) {
+                monitor.warning("Could not preload JSON-LD context %s".formatted(url), e);
+            }
+        });
+    }
+
+    @Override
+    public Document loadDocument(URI url, DocumentLoaderOptions options) throws JsonLdError {
+        var document = documents.get(url);
+        if (document != null) {
+            return document;
+        }
+        if (remoteLoader == null) {
+            throw new JsonLdError(JsonLdErrorCode.LOADING_DOCUMENT_FAILED, "Remote JSON-LD document %s is not bundled and remote loading is disabled".formatted(url));
+        }
+        document = remoteDocuments.get(url);
+        if (document != null) {
+            return document;
+        }
+        document = remoteLoader.loadDocument(url, options);
+        remoteDocuments.put(url, document);
+        return document;
+    }
+}
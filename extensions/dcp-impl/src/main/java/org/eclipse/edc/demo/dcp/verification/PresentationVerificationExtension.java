@@ -0,0 +1,154 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.verification;
+
+import com.apicatalog.jsonld.loader.SchemeRouter;
+import org.eclipse.edc.iam.did.spi.resolution.DidPublicKeyResolver;
+import org.eclipse.edc.iam.did.spi.resolution.DidResolverRegistry;
+import org.eclipse.edc.iam.identitytrust.core.validation.SelfIssueIdTokenValidationAction;
+import org.eclipse.edc.iam.identitytrust.service.DidCredentialServiceUrlResolver;
+import org.eclipse.edc.iam.identitytrust.service.IdentityAndTrustService;
+import org.eclipse.edc.iam.identitytrust.spi.ClaimTokenCreatorFunction;
+import org.eclipse.edc.iam.identitytrust.spi.CredentialServiceClient;
+import org.eclipse.edc.iam.identitytrust.spi.SecureTokenService;
+import org.eclipse.edc.iam.identitytrust.spi.verification.SignatureSuiteRegistry;
+import org.eclipse.edc.iam.verifiablecredentials.VerifiableCredentialValidationServiceImpl;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.RevocationServiceRegistry;
+import org.eclipse.edc.iam.verifiablecredentials.spi.validation.PresentationVerifier;
+import org.eclipse.edc.iam.verifiablecredentials.spi.validation.TrustedIssuerRegistry;
+import org.eclipse.edc.jsonld.spi.JsonLd;
+import org.eclipse.edc.runtime.metamodel.annotation.Inject;
+import org.eclipse.edc.runtime.metamodel.annotation.Provides;
+import org.eclipse.edc.runtime.metamodel.annotation.Setting;
+import org.eclipse.edc.spi.iam.IdentityService;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.system.ServiceExtension;
+import org.eclipse.edc.spi.system.ServiceExtensionContext;
+import org.eclipse.edc.spi.types.TypeManager;
+import org.eclipse.edc.token.spi.TokenValidationRulesRegistry;
+import org.eclipse.edc.token.spi.TokenValidationService;
+import org.eclipse.edc.verifiablecredentials.jwt.JwtPresentationVerifier;
+import org.eclipse.edc.verifiablecredentials.linkeddata.DidMethodResolver;
+import org.eclipse.edc.verifiablecredentials.linkeddata.LdpVerifier;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.eclipse.edc.spi.constants.CoreConstants.JSON_LD;
+
+/**
+ * Replaces the DCP {@link IdentityService} with one that verifies the credentials of a presentation in parallel
+ * ({@link ParallelPresentationVerifier}) and remembers verified presentations ({@link CachingPresentationVerifier}).
+ * The upstream identity service creates its verifier internally, so the service is assembled here from the same parts.
+ * Injecting the upstream service makes the runtime initialize this extension after it, so the registration here takes
+ * precedence.
+ * <p>
+ * The assembly mirrors {@code IdentityAndTrustExtension#createIdentityService} of EDC 0.14.1. That version does not
+ * register its {@link PresentationVerifier} as a service, so the verifier cannot be decorated instead. When upgrading
+ * EDC, compare this method with the upstream one and carry over any new constructor arguments or verifiers.
+ */
+@Provides(IdentityService.class)
+public class PresentationVerificationExtension implements ServiceExtension {
+
+    @Setting(value = "Maximum number of verified presentations remembered, 0 disables the cache", defaultValue = "1000")
+    public static final String VERIFICATION_CACHE_SIZE_PROPERTY = "edc.mvd.dcp.verificationcache.size";
+
+    @Setting(value = "Maximum time in seconds a verified presentation is trusted without verifying it again", defaultValue = "300")
+    public static final String VERIFICATION_CACHE_TTL_PROPERTY = "edc.mvd.dcp.verificationcache.ttl";
+
+    @Setting(value = "Maximum number of credentials of one presentation verified concurrently", defaultValue = "number of available processors")
+    public static final String VERIFICATION_PARALLELISM_PROPERTY = "edc.mvd.dcp.verification.parallelism";
+
+    @Setting(value = "Whether linked-data proofs may fetch JSON-LD documents that are not bundled from the network", defaultValue = "false")
+    public static final String REMOTE_DOCUMENTS_ENABLED_PROPERTY = "edc.mvd.jsonld.remote.enabled";
+
+    private static final String ISSUER_ID_PROPERTY = "edc.iam.issuer.id";
+
+    // not used, only injected so that this extension is initialized after the upstream identity service
+    @Inject
+    private IdentityService identityService;
+    @Inject
+    private SecureTokenService secureTokenService;
+    @Inject
+    private CredentialServiceClient credentialServiceClient;
+    @Inject
+    private ClaimTokenCreatorFunction claimTokenCreatorFunction;
+    @Inject
+    private TrustedIssuerRegistry trustedIssuerRegistry;
+    @Inject
+    private RevocationServiceRegistry revocationServiceRegistry;
+    @Inject
+    private SignatureSuiteRegistry signatureSuiteRegistry;
+    @Inject
+    private TokenValidationService tokenValidationService;
+    @Inject
+    private TokenValidationRulesRegistry rulesRegistry;
+    @Inject
+    private DidPublicKeyResolver didPublicKeyResolver;
+    @Inject
+    private DidResolverRegistry didResolverRegistry;
+    @Inject
+    private JsonLd jsonLd;
+    @Inject
+    private TypeManager typeManager;
+    @Inject
+    private Clock clock;
+
+    private CachingPresentationVerifier verificationCache;
+    private ForkJoinPool verificationPool;
+    private Monitor monitor;
+
+    @Override
+    public void initialize(ServiceExtensionContext context) {
+        monitor = context.getMonitor();
+
+        var issuerId = context.getSetting(ISSUER_ID_PROPERTY, null);
+        var jwtVerifier = new JwtPresentationVerifier(typeManager, JSON_LD, tokenValidationService, rulesRegistry, didPublicKeyResolver);
+        var ldpVerifier = LdpVerifier.Builder.newInstance()
+                .signatureSuites(signatureSuiteRegistry)
+                .jsonLd(jsonLd)
+                .typeManager(typeManager)
+                .typeContext(JSON_LD)
+                .methodResolver(new DidMethodResolver(didResolverRegistry))
+                .loader(new PreloadedDocumentLoader(context.getSetting(REMOTE_DOCUMENTS_ENABLED_PROPERTY, false) ? SchemeRouter.defaultInstance() : null, monitor))
+                .build();
+        verificationPool = new ForkJoinPool(Math.max(1, context.getSetting(VERIFICATION_PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors())));
+        PresentationVerifier presentationVerifier = new ParallelPresentationVerifier(issuerId, verificationPool, jwtVerifier, ldpVerifier);
+
+        var cacheSize = context.getSetting(VERIFICATION_CACHE_SIZE_PROPERTY, 1000);
+        if (cacheSize > 0) {
+            verificationCache = new CachingPresentationVerifier(presentationVerifier, cacheSize,
+                    Duration.ofSeconds(context.getSetting(VERIFICATION_CACHE_TTL_PROPERTY, 300L)), clock);
+            presentationVerifier = verificationCache;
+        }
+
+        var validationService = new VerifiableCredentialValidationServiceImpl(presentationVerifier, trustedIssuerRegistry, revocationServiceRegistry, clock, typeManager.getMapper());
+        context.registerService(IdentityService.class, new IdentityAndTrustService(secureTokenService, issuerId, credentialServiceClient,
+                new SelfIssueIdTokenValidationAction(tokenValidationService, rulesRegistry, didPublicKeyResolver),
+                new DidCredentialServiceUrlResolver(didResolverRegistry), claimTokenCreatorFunction, validationService));
+    }
+
+    @Override
+    public void shutdown() {
+        if (verificationPool != null) {
+            verificationPool.shutdownNow();
+        }
+        if (verificationCache != null) {
+            monitor.info("Presentation verification cache: %d hits, %d misses, %d entries"
+                    .formatted(verificationCache.getHitCount(), verificationCache.getMissCount(), verificationCache.size()));
+        }
+    }
+}
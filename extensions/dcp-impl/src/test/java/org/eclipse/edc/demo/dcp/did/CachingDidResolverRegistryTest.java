@@ -0,0 +1,144 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+
+package org.eclipse.edc.demo.dcp.did;
+
+import org.eclipse.edc.iam.did.spi.document.DidDocument;
+import org.eclipse.edc.iam.did.spi.resolution.DidResolverRegistry;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.result.Result;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingDidResolverRegistryTest {
+
+    private static final String DID = "did:web:provider";
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final Duration FAILURE_TTL = Duration.ofSeconds(10);
+    private static final Duration STALE = Duration.ofMinutes(1);
+
+    private final DidResolverRegistry delegate = mock();
+    private final Clock clock = mock();
+    // refreshes run synchronously, so their effect is visible right after the call that triggered them
+    private final CachingDidResolverRegistry registry = new CachingDidResolverRegistry(delegate, 2, TTL, FAILURE_TTL, STALE,
+            clock, Runnable::run, mock(Monitor.class));
+
+    @BeforeEach
+    void setup() {
+        at(NOW);
+    }
+
+    @Test
+    void resolve_servesDocumentForTimeToLive() {
+        when(delegate.resolve(DID)).thenReturn(Result.success(document()));
+
+        registry.resolve(DID);
+        at(NOW.plus(TTL).minusSeconds(1));
+        var result = registry.resolve(DID);
+
+        assertThat(result.succeeded()).isTrue();
+        verify(delegate, times(1)).resolve(DID);
+        assertThat(registry.getHitCount()).isEqualTo(1);
+        assertThat(registry.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void resolve_remembersFailureBriefly() {
+        when(delegate.resolve(DID)).thenReturn(Result.failure("unreachable")).thenReturn(Result.success(document()));
+
+        assertThat(registry.resolve(DID).failed()).isTrue();
+        assertThat(registry.resolve(DID).failed()).isTrue();
+        at(NOW.plus(FAILURE_TTL));
+        assertThat(registry.resolve(DID).succeeded()).isTrue();
+
+        verify(delegate, times(2)).resolve(DID);
+    }
+
+    @Test
+    void resolve_servesStaleDocumentWhileRefreshing() {
+        var first = document();
+        var second = document();
+        when(delegate.resolve(DID)).thenReturn(Result.success(first)).thenReturn(Result.success(second));
+
+        registry.resolve(DID);
+        at(NOW.plus(TTL));
+        var stale = registry.resolve(DID);
+        var refreshed = registry.resolve(DID);
+
+        assertThat(stale.getContent()).isSameAs(first);
+        assertThat(refreshed.getContent()).isSameAs(second);
+        assertThat(registry.getStaleHitCount()).isEqualTo(1);
+        verify(delegate, times(2)).resolve(DID);
+    }
+
+    @Test
+    void resolve_failedRefresh_keepsDocument() {
+        var document = document();
+        when(delegate.resolve(DID)).thenReturn(Result.success(document)).thenReturn(Result.failure("unreachable"));
+
+        registry.resolve(DID);
+        at(NOW.plus(TTL));
+        registry.resolve(DID);
+
+        assertThat(registry.resolve(DID).getContent()).isSameAs(document);
+        assertThat(registry.getStaleHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void resolve_afterStaleWindow_resolvesAgain() {
+        when(delegate.resolve(DID)).thenReturn(Result.success(document())).thenReturn(Result.failure("unreachable"));
+
+        registry.resolve(DID);
+        at(NOW.plus(TTL).plus(STALE));
+
+        assertThat(registry.resolve(DID).failed()).isTrue();
+        assertThat(registry.getStaleHitCount()).isZero();
+        assertThat(registry.getMissCount()).isEqualTo(2);
+    }
+
+    @Test
+    void resolve_evictsLeastRecentlyUsedDocument() {
+        when(delegate.resolve(DID)).thenReturn(Result.success(document()));
+        when(delegate.resolve("did:web:a")).thenReturn(Result.success(document()));
+        when(delegate.resolve("did:web:b")).thenReturn(Result.success(document()));
+
+        registry.resolve(DID);
+        registry.resolve("did:web:a");
+        registry.resolve("did:web:b");
+        registry.resolve(DID);
+
+        assertThat(registry.size()).isEqualTo(2);
+        verify(delegate, times(2)).resolve(DID);
+    }
+
+    private void at(Instant instant) {
+        when(clock.instant()).thenReturn(instant);
+    }
+
+    private static DidDocument document() {
+        return DidDocument.Builder.newInstance().id(DID).build();
+    }
+}
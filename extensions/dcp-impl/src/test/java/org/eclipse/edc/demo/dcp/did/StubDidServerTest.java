@@ -0,0 +1,159 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+
+package org.eclipse.edc.demo.dcp.did;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.edc.iam.did.spi.document.DidDocument;
+import org.eclipse.edc.iam.did.spi.resolution.DidResolver;
+import org.eclipse.edc.iam.did.spi.resolution.DidResolverRegistry;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.result.Result;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Resolves {@code did:web} documents from a local HTTP server through the cache.
+ */
+class StubDidServerTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicReference<Integer> status = new AtomicReference<>(200);
+    private final Clock clock = mock();
+    private HttpServer server;
+    private String did;
+    private CachingDidResolverRegistry registry;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/.well-known/did.json", exchange -> {
+            requests.incrementAndGet();
+            var body = mapper.writeValueAsBytes(DidDocument.Builder.newInstance().id(did).build());
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status.get(), body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        did = "did:web:localhost%3A" + server.getAddress().getPort();
+
+        when(clock.instant()).thenReturn(NOW);
+        registry = new CachingDidResolverRegistry(new StubRegistry(new WebResolver(mapper)), 10, TTL, Duration.ofSeconds(10),
+                Duration.ofMinutes(1), clock, Runnable::run, mock(Monitor.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void repeatedResolutions_fetchDocumentOnce() {
+        for (var i = 0; i < 5; i++) {
+            assertThat(registry.resolve(did).getContent().getId()).isEqualTo(did);
+        }
+
+        assertThat(requests).hasValue(1);
+        assertThat(registry.getHitRatio()).isEqualTo(0.8);
+    }
+
+    @Test
+    void unavailableServer_doesNotReplaceResolvedDocument() {
+        registry.resolve(did);
+        status.set(500);
+        when(clock.instant()).thenReturn(NOW.plus(TTL));
+
+        var stale = registry.resolve(did);
+        var afterFailedRefresh = registry.resolve(did);
+
+        assertThat(stale.getContent().getId()).isEqualTo(did);
+        assertThat(afterFailedRefresh.getContent().getId()).isEqualTo(did);
+        // each stale hit refreshes the document, and each failed refresh keeps the resolved one
+        assertThat(requests).hasValue(3);
+    }
+
+    /**
+     * Fetches {@code did:web} documents over plain HTTP from {@code /.well-known/did.json}.
+     */
+    private record WebResolver(ObjectMapper mapper) implements DidResolver {
+
+        private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+        @Override
+        public String getMethod() {
+            return "web";
+        }
+
+        @Override
+        public Result<DidDocument> resolve(String didKey) {
+            var host = URLDecoder.decode(didKey.substring("did:web:".length()), StandardCharsets.UTF_8);
+            var request = HttpRequest.newBuilder(URI.create("http://" + host + "/.well-known/did.json")).build();
+            try {
+                var response = CLIENT.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() != 200) {
+                    return Result.failure("HTTP " + response.statusCode());
+                }
+                return Result.success(mapper.readValue(response.body(), DidDocument.class));
+            } catch (IOException e) {
+                return Result.failure(e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Result.failure("interrupted");
+            }
+        }
+    }
+
+    private record StubRegistry(DidResolver resolver) implements DidResolverRegistry {
+        @Override
+        public void register(DidResolver resolver) {
+        }
+
+        @Override
+        public boolean isSupported(String didMethod) {
+            return resolver.getMethod().equals(didMethod);
+        }
+
+        @Override
+        public Result<DidDocument> resolve(String didKey) {
+            return resolver.resolve(didKey);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+
+package org.eclipse.edc.demo.dcp.policy;
+
+import org.eclipse.edc.connector.controlplane.catalog.spi.policy.CatalogPolicyContext;
+import org.eclipse.edc.connector.controlplane.contract.spi.policy.TransferProcessPolicyContext;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.CredentialSubject;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.Issuer;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.VerifiableCredential;
+import org.eclipse.edc.participant.spi.ParticipantAgent;
+import org.eclipse.edc.policy.model.Operator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PolicyDecisionCacheTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T00:00:00Z");
+
+    private final Clock clock = mock();
+    private final PolicyDecisionCache cache = new PolicyDecisionCache(100, Duration.ofMinutes(5), clock);
+    private final AtomicInteger decisions = new AtomicInteger();
+    private final Predicate<CredentialIndex> decision = credentials -> {
+        decisions.incrementAndGet();
+        return true;
+    };
+
+    @BeforeEach
+    void setup() {
+        when(clock.instant()).thenReturn(NOW);
+    }
+
+    @Test
+    void sameCredentials_areDecidedOnce() {
+        evaluate(index(Map.of("level", "processing")));
+        evaluate(index(Map.of("level", "processing")));
+
+        assertThat(decisions).hasValue(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void fingerprint_ignoresClaimOrder() {
+        var first = new LinkedHashMap<String, Object>();
+        first.put("level", "processing");
+        first.put("contractVersion", "1.0.0");
+        var second = new LinkedHashMap<String, Object>();
+        second.put("contractVersion", "1.0.0");
+        second.put("level", "processing");
+
+        assertThat(index(first).fingerprint()).isEqualTo(index(second).fingerprint());
+    }
+
+    @Test
+    void changedCredentials_areDecidedAgain() {
+        evaluate(index(Map.of("level", "processing")));
+        evaluate(index(Map.of("level", "sensitive")));
+        // a value that reads the same in a naive string form
+        evaluate(index(Map.of("level", List.of("processing"))));
+
+        assertThat(decisions).hasValue(3);
+    }
+
+    @Test
+    void otherScopeOrConstraint_isDecidedAgain() {
+        var credentials = index(Map.of("level", "processing"));
+
+        cache.evaluate(credentials, CatalogPolicyContext.class, "DataAccess.level", Operator.EQ, "processing", decision);
+        cache.evaluate(credentials, TransferProcessPolicyContext.class, "DataAccess.level", Operator.EQ, "processing", decision);
+        cache.evaluate(credentials, CatalogPolicyContext.class, "DataAccess.level", Operator.EQ, "sensitive", decision);
+
+        assertThat(decisions).hasValue(3);
+    }
+
+    @Test
+    void entry_expiresAtMembershipSince() {
+        var credentials = index(Map.of("membership", Map.of("since", NOW.plusSeconds(60).toString())));
+        evaluate(credentials);
+
+        when(clock.instant()).thenReturn(NOW.plusSeconds(59));
+        evaluate(credentials);
+        when(clock.instant()).thenReturn(NOW.plusSeconds(60));
+        evaluate(credentials);
+
+        assertThat(decisions).hasValue(2);
+    }
+
+    @Test
+    void entry_expiresAtCredentialExpiry() {
+        var credentials = index(credential(Map.of("level", "processing"), NOW.plusSeconds(30)));
+        evaluate(credentials);
+
+        when(clock.instant()).thenReturn(NOW.plusSeconds(30));
+        evaluate(credentials);
+
+        assertThat(decisions).hasValue(2);
+    }
+
+    @Test
+    void entry_expiresAfterTimeToLive() {
+        var credentials = index(Map.of("level", "processing"));
+        evaluate(credentials);
+
+        when(clock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(5)));
+        evaluate(credentials);
+
+        assertThat(decisions).hasValue(2);
+    }
+
+    @Test
+    void size_isBounded() {
+        for (var i = 0; i < 1000; i++) {
+            evaluate(index(Map.of("level", "level-" + i)));
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(112);
+        assertThat(cache.getEvictionCount()).isEqualTo(1000 - cache.size());
+    }
+
+    @Test
+    void disabled_alwaysDecides() {
+        var disabled = new PolicyDecisionCache(0, Duration.ofMinutes(5), clock);
+        var credentials = index(Map.of("level", "processing"));
+
+        disabled.evaluate(credentials, CatalogPolicyContext.class, "DataAccess.level", Operator.EQ, "processing", decision);
+        disabled.evaluate(credentials, CatalogPolicyContext.class, "DataAccess.level", Operator.EQ, "processing", decision);
+
+        assertThat(decisions).hasValue(2);
+        assertThat(disabled.size()).isZero();
+    }
+
+    private void evaluate(CredentialIndex credentials) {
+        cache.evaluate(credentials, CatalogPolicyContext.class, "DataAccess.level", Operator.EQ, "processing", decision);
+    }
+
+    private static CredentialIndex index(Map<String, Object> subjectClaims) {
+        return index(credential(subjectClaims, NOW.plus(Duration.ofDays(365))));
+    }
+
+    private static CredentialIndex index(VerifiableCredential credential) {
+        return CredentialIndex.of(new ParticipantAgent("did:web:consumer", Map.of("vc", List.of(credential)), Map.of())).getContent();
+    }
+
+    private static VerifiableCredential credential(Map<String, Object> subjectClaims, Instant expiry) {
+        return VerifiableCredential.Builder.newInstance()
+                .id("credential")
+                .type("VerifiableCredential")
+                .type("https://w3id.org/mvd/credentials/MembershipCredential")
+                .issuer(new Issuer("did:web:dataspace-issuer"))
+                .issuanceDate(Instant.parse("2024-01-01T00:00:00Z"))
+                .expirationDate(expiry)
+                .credentialSubject(CredentialSubject.Builder.newInstance()
+                        .id("did:web:consumer")
+                        .claims(subjectClaims)
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.sts;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.eclipse.edc.iam.identitytrust.spi.SecureTokenService;
+import org.eclipse.edc.spi.iam.TokenRepresentation;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.result.Result;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingSecureTokenServiceTest {
+
+    private static final String REUSE_AUDIENCE = "did:web:reuse";
+    private static final String OTHER_AUDIENCE = "did:web:other";
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final SecureTokenService delegate = mock();
+    private final CachingSecureTokenService cache = new CachingSecureTokenService(delegate, 10, Duration.ofSeconds(30), Set.of(REUSE_AUDIENCE),
+            Clock.fixed(NOW, ZoneOffset.UTC), Runnable::run, mock(Monitor.class));
+
+    @Test
+    void createToken_withoutJti_isReused() {
+        when(delegate.createToken(anyMap(), any())).thenAnswer(i -> Result.success(token(false)));
+
+        var first = cache.createToken(Map.of("aud", OTHER_AUDIENCE), "scope");
+        var second = cache.createToken(Map.of("aud", OTHER_AUDIENCE), "scope");
+
+        assertThat(second.getContent()).isSameAs(first.getContent());
+        verify(delegate, times(1)).createToken(anyMap(), any());
+    }
+
+    @Test
+    void createToken_withJti_isMintedPerRequest() {
+        when(delegate.createToken(anyMap(), any())).thenAnswer(i -> Result.success(token(true)));
+
+        var first = cache.createToken(Map.of("aud", OTHER_AUDIENCE), "scope");
+        var second = cache.createToken(Map.of("aud", OTHER_AUDIENCE), "scope");
+
+        assertThat(second.getContent().getToken()).isNotEqualTo(first.getContent().getToken());
+        verify(delegate, times(2)).createToken(anyMap(), any());
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void createToken_withJti_isReusedForAudienceThatDoesNotCheckIt() {
+        when(delegate.createToken(anyMap(), any())).thenAnswer(i -> Result.success(token(true)));
+
+        var first = cache.createToken(Map.of("aud", REUSE_AUDIENCE), "scope");
+        var second = cache.createToken(Map.of("aud", REUSE_AUDIENCE), "scope");
+
+        assertThat(second.getContent()).isSameAs(first.getContent());
+        verify(delegate, times(1)).createToken(anyMap(), any());
+    }
+
+    @Test
+    void createToken_differentScope_isNotReused() {
+        when(delegate.createToken(anyMap(), any())).thenAnswer(i -> Result.success(token(false)));
+
+        cache.createToken(Map.of("aud", OTHER_AUDIENCE), "scope-1");
+        cache.createToken(Map.of("aud", OTHER_AUDIENCE), "scope-2");
+
+        verify(delegate, times(2)).createToken(anyMap(), any());
+    }
+
+    private static TokenRepresentation token(boolean withJti) {
+        var claims = new JWTClaimsSet.Builder()
+                .issuer("did:web:me")
+                .expirationTime(Date.from(NOW.plusSeconds(300)))
+                .jwtID(withJti ? UUID.randomUUID().toString() : null)
+                .build();
+        var jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), claims);
+        try {
+            jwt.sign(new MACSigner(new byte[32]));
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+        return TokenRepresentation.Builder.newInstance().token(jwt.serialize()).build();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+
+package org.eclipse.edc.demo.dcp.sts;
+
+import org.eclipse.edc.iam.identitytrust.spi.SecureTokenService;
+import org.eclipse.edc.junit.extensions.DependencyInjectionExtension;
+import org.eclipse.edc.spi.system.ServiceExtensionContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.eclipse.edc.demo.dcp.sts.SecureTokenCacheExtension.TOKEN_CACHE_JTI_REUSE_AUDIENCES_PROPERTY;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(DependencyInjectionExtension.class)
+class SecureTokenCacheExtensionTest {
+
+    private final SecureTokenService secureTokenService = mock();
+
+    @BeforeEach
+    void setup(ServiceExtensionContext context) {
+        context.registerService(SecureTokenService.class, secureTokenService);
+    }
+
+    @Test
+    void initialize_withoutJtiReuseAudiences_keepsStsClient(SecureTokenCacheExtension extension, ServiceExtensionContext context) {
+        extension.initialize(context);
+
+        assertThat(context.getService(SecureTokenService.class)).isSameAs(secureTokenService);
+    }
+
+    @Test
+    void initialize_withJtiReuseAudiences_installsCache(SecureTokenCacheExtension extension, ServiceExtensionContext context) {
+        when(context.getSetting(eq(TOKEN_CACHE_JTI_REUSE_AUDIENCES_PROPERTY), any())).thenReturn("did:web:provider");
+
+        extension.initialize(context);
+
+        assertThat(context.getService(SecureTokenService.class)).isInstanceOf(CachingSecureTokenService.class);
+        extension.shutdown();
+    }
+}
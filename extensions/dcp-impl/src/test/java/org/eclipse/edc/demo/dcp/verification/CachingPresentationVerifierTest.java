@@ -0,0 +1,125 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+
+package org.eclipse.edc.demo.dcp.verification;
+
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.CredentialFormat;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.VerifiableCredential;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.VerifiablePresentation;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.VerifiablePresentationContainer;
+import org.eclipse.edc.iam.verifiablecredentials.spi.validation.PresentationVerifier;
+import org.eclipse.edc.spi.result.Result;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingPresentationVerifierTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final PresentationVerifier delegate = mock();
+    private final Clock clock = mock();
+    private final CachingPresentationVerifier cache = new CachingPresentationVerifier(delegate, 2, Duration.ofMinutes(5), clock);
+
+    @BeforeEach
+    void setup() {
+        when(clock.instant()).thenReturn(NOW);
+        when(delegate.verifyPresentation(any())).thenReturn(Result.success());
+    }
+
+    @Test
+    void samePresentation_isVerifiedOnce() {
+        assertThat(cache.verifyPresentation(presentation("vp-1")).succeeded()).isTrue();
+        assertThat(cache.verifyPresentation(presentation("vp-1")).succeeded()).isTrue();
+
+        verify(delegate, times(1)).verifyPresentation(any());
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void failedVerification_isNotCached() {
+        when(delegate.verifyPresentation(any())).thenReturn(Result.failure("invalid proof"));
+
+        assertThat(cache.verifyPresentation(presentation("vp-1")).failed()).isTrue();
+        assertThat(cache.verifyPresentation(presentation("vp-1")).failed()).isTrue();
+
+        verify(delegate, times(2)).verifyPresentation(any());
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void entry_expiresAfterTimeToLive() {
+        cache.verifyPresentation(presentation("vp-1"));
+
+        when(clock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(5)));
+        cache.verifyPresentation(presentation("vp-1"));
+
+        verify(delegate, times(2)).verifyPresentation(any());
+    }
+
+    @Test
+    void entry_expiresWithEarliestCredential() {
+        var container = presentation("vp-1", NOW.plus(Duration.ofMinutes(10)), NOW.plus(Duration.ofMinutes(1)));
+        cache.verifyPresentation(container);
+
+        when(clock.instant()).thenReturn(NOW.plusSeconds(59));
+        cache.verifyPresentation(container);
+        when(clock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(1)));
+        cache.verifyPresentation(container);
+
+        verify(delegate, times(2)).verifyPresentation(any());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedPresentation() {
+        cache.verifyPresentation(presentation("vp-1"));
+        cache.verifyPresentation(presentation("vp-2"));
+        // vp-1 becomes the most recently used presentation
+        cache.verifyPresentation(presentation("vp-1"));
+
+        cache.verifyPresentation(presentation("vp-3"));
+        cache.verifyPresentation(presentation("vp-1"));
+        cache.verifyPresentation(presentation("vp-2"));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getHitCount()).isEqualTo(2);
+        assertThat(cache.getMissCount()).isEqualTo(4);
+    }
+
+    private static VerifiablePresentationContainer presentation(String rawVp, Instant... credentialExpiries) {
+        var presentation = mock(VerifiablePresentation.class);
+        var credentials = Arrays.stream(credentialExpiries)
+                .map(expiry -> {
+                    var credential = mock(VerifiableCredential.class);
+                    when(credential.getExpirationDate()).thenReturn(expiry);
+                    return credential;
+                })
+                .toList();
+        when(presentation.getCredentials()).thenReturn(credentials);
+        return new VerifiablePresentationContainer(rawVp, CredentialFormat.VC1_0_LD, presentation);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+
+package org.eclipse.edc.demo.dcp.verification;
+
+import org.eclipse.edc.iam.identitytrust.spi.verification.CredentialVerifier;
+import org.eclipse.edc.iam.identitytrust.spi.verification.VerifierContext;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.CredentialFormat;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.VerifiablePresentationContainer;
+import org.eclipse.edc.spi.result.Result;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelPresentationVerifierTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final StubVerifier stub = new StubVerifier();
+    private final ParallelPresentationVerifier verifier = new ParallelPresentationVerifier("did:web:me", pool, stub);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void verifyPresentation_verifiesAllCredentials() {
+        var result = verifier.verifyPresentation(presentation("vp:vc-1,vc-2,vc-3"));
+
+        assertThat(result.succeeded()).isTrue();
+        assertThat(stub.verified).containsExactlyInAnyOrder("vp:vc-1,vc-2,vc-3", "vc-1", "vc-2", "vc-3");
+    }
+
+    @Test
+    void verifyPresentation_reportsFailedCredential() {
+        var result = verifier.verifyPresentation(presentation("vp:vc-1,bad-vc-2,vc-3,vc-4"));
+
+        assertThat(result.failed()).isTrue();
+        assertThat(result.getFailureDetail()).isEqualTo("invalid bad-vc-2");
+    }
+
+    @Test
+    void verifyPresentation_failedPresentation_skipsCredentials() {
+        var result = verifier.verifyPresentation(presentation("bad-vp:vc-1,vc-2"));
+
+        assertThat(result.failed()).isTrue();
+        assertThat(stub.verified).containsExactly("bad-vp:vc-1,vc-2");
+    }
+
+    @Test
+    void verifyPresentation_unsupportedFormat() {
+        var result = verifier.verifyPresentation(presentation("unsupported"));
+
+        assertThat(result.failed()).isTrue();
+        assertThat(stub.verified).isEmpty();
+    }
+
+    private static VerifiablePresentationContainer presentation(String rawVp) {
+        return new VerifiablePresentationContainer(rawVp, CredentialFormat.VC1_0_JWT, null);
+    }
+
+    /**
+     * Handles presentations of the form {@code vp:credential,credential,...} and plain credentials. Everything that
+     * starts with {@code bad} fails.
+     */
+    private static class StubVerifier implements CredentialVerifier {
+
+        private final Set<String> verified = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public boolean canHandle(String rawInput) {
+            return !rawInput.equals("unsupported");
+        }
+
+        @Override
+        public Result<Void> verify(String rawInput, VerifierContext context) {
+            verified.add(rawInput);
+            if (rawInput.startsWith("bad")) {
+                return Result.failure("invalid " + rawInput);
+            }
+            var separator = rawInput.indexOf(':');
+            if (separator >= 0) {
+                for (var credential : List.of(rawInput.substring(separator + 1).split(","))) {
+                    var result = context.verify(credential);
+                    if (result.failed()) {
+                        return result;
+                    }
+                }
+            }
+            return Result.success();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.verification;
+
+import com.apicatalog.jsonld.JsonLdError;
+import com.apicatalog.jsonld.document.Document;
+import com.apicatalog.jsonld.loader.DocumentLoader;
+import com.apicatalog.jsonld.loader.DocumentLoaderOptions;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PreloadedDocumentLoaderTest {
+
+    private static final URI REMOTE = URI.create("https://example.com/context.jsonld");
+
+    private final Monitor monitor = mock();
+    private final DocumentLoader remoteLoader = mock();
+
+    @Test
+    void bundledContexts_areServedWithoutRemoteLoader() throws JsonLdError {
+        var loader = new PreloadedDocumentLoader(null, monitor);
+
+        for (var url : PreloadedDocumentLoader.CONTEXTS.keySet()) {
+            assertThat(loader.loadDocument(URI.create(url), new DocumentLoaderOptions()).getDocumentUrl()).isEqualTo(URI.create(url));
+        }
+        verify(monitor, never()).warning(anyString());
+        verify(monitor, never()).warning(anyString(), any());
+    }
+
+    @Test
+    void remoteDocument_isRejectedWithoutRemoteLoader() {
+        var loader = new PreloadedDocumentLoader(null, monitor);
+
+        assertThatThrownBy(() -> loader.loadDocument(REMOTE, new DocumentLoaderOptions())).isInstanceOf(JsonLdError.class);
+    }
+
+    @Test
+    void remoteDocument_isLoadedOnce() throws JsonLdError {
+        var document = mock(Document.class);
+        when(remoteLoader.loadDocument(eq(REMOTE), any())).thenReturn(document);
+        var loader = new PreloadedDocumentLoader(remoteLoader, monitor);
+
+        assertThat(loader.loadDocument(REMOTE, new DocumentLoaderOptions())).isSameAs(document);
+        assertThat(loader.loadDocument(REMOTE, new DocumentLoaderOptions())).isSameAs(document);
+
+        verify(remoteLoader, times(1)).loadDocument(eq(REMOTE), any());
+    }
+
+    @Test
+    void remoteDocuments_areBounded() throws JsonLdError {
+        when(remoteLoader.loadDocument(any(), any())).thenAnswer(i -> mock(Document.class));
+        var loader = new PreloadedDocumentLoader(remoteLoader, monitor);
+
+        loader.loadDocument(REMOTE, new DocumentLoaderOptions());
+        for (var i = 0; i < PreloadedDocumentLoader.MAX_REMOTE_DOCUMENTS; i++) {
+            loader.loadDocument(URI.create("https://example.com/" + i), new DocumentLoaderOptions());
+        }
+        loader.loadDocument(REMOTE, new DocumentLoaderOptions());
+
+        // the first document was evicted by the later ones and is loaded again
+        verify(remoteLoader, times(2)).loadDocument(eq(REMOTE), any());
+    }
+}
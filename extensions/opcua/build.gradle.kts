@@ -15,6 +15,8 @@ dependencies {
     implementation(libs.edc.dataplane.spi)
     implementation(libs.milo.sdk.client)
     implementation(libs.jackson.datatype.jakarta.jsonp)
+
+    testImplementation(libs.edc.junit)
 }
 
 java {
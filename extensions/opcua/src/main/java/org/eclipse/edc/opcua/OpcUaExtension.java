@@ -5,16 +5,23 @@ import org.eclipse.edc.connector.controlplane.transfer.spi.flow.DataFlowManager;
 import org.eclipse.edc.opcua.client.OpcUaClientService;
 import org.eclipse.edc.opcua.client.OpcUaClientServiceImpl;
 import org.eclipse.edc.opcua.edr.EdrApiController;
+import org.eclipse.edc.opcua.edr.EdrChangeWatcher;
 import org.eclipse.edc.opcua.edr.EdrService;
 import org.eclipse.edc.opcua.edr.InMemoryEdrService;
 import org.eclipse.edc.opcua.flow.OpcUaDataFlowController;
 import org.eclipse.edc.opcua.push.OpcUaPushService;
 import org.eclipse.edc.opcua.push.OpcUaPushServiceImpl;
+import org.eclipse.edc.opcua.ratelimit.EdrRateLimiter;
+import org.eclipse.edc.opcua.ratelimit.RateLimits;
 import org.eclipse.edc.runtime.metamodel.annotation.Inject;
+import org.eclipse.edc.spi.EdcException;
+import org.eclipse.edc.spi.monitor.Monitor;
 import org.eclipse.edc.spi.system.ServiceExtension;
 import org.eclipse.edc.spi.system.ServiceExtensionContext;
 import org.eclipse.edc.web.spi.WebService;
 
+import java.time.Duration;
+
 public class OpcUaExtension implements ServiceExtension {
 
     @Inject
@@ -23,6 +30,11 @@ public class OpcUaExtension implements ServiceExtension {
     @Inject
     private WebService webService;
 
+    private OpcUaClientServiceImpl opcUaClientService;
+    private EdrRateLimiter rateLimiter;
+    private EdrChangeWatcher changeWatcher;
+    private Monitor monitor;
+
     @Override
     public String name() {
         return "OPC UA Extension";
@@ -30,14 +42,14 @@ public class OpcUaExtension implements ServiceExtension {
 
     @Override
     public void initialize(ServiceExtensionContext context) {
-        var monitor = context.getMonitor();
+        monitor = context.getMonitor();
 
         // Initialize EDR service for HTTP-PULL mechanism
         var edrService = new InMemoryEdrService();
         context.registerService(EdrService.class, edrService);
 
         // Initialize OPC UA client service
-        var opcUaClientService = new OpcUaClientServiceImpl();
+        opcUaClientService = new OpcUaClientServiceImpl();
         context.registerService(OpcUaClientService.class, opcUaClientService);
 
         // Initialize OPC UA push service for HTTP-PUSH mechanism (without EdcHttpClient)
@@ -47,12 +59,37 @@ public class OpcUaExtension implements ServiceExtension {
         // Get public endpoint configuration
         var publicEndpoint = context.getSetting("edc.opcua.edr.endpoint", "http://localhost:19291/api/edr");
 
+        // Rate limits for EDR pulls, off unless a rate is configured; per-transfer limits can also be set by the policy
+        // or the data address
+        var transferLimits = new RateLimits(
+                RateLimits.parseRate(context.getSetting("edc.opcua.edr.ratelimit.transfer.rate", "0")),
+                RateLimits.parseBurst(context.getSetting("edc.opcua.edr.ratelimit.transfer.burst", "20")));
+        var consumerLimits = new RateLimits(
+                RateLimits.parseRate(context.getSetting("edc.opcua.edr.ratelimit.consumer.rate", "0")),
+                RateLimits.parseBurst(context.getSetting("edc.opcua.edr.ratelimit.consumer.burst", "100")));
+        rateLimiter = new EdrRateLimiter(consumerLimits);
+        context.registerService(EdrRateLimiter.class, rateLimiter);
+
         // Create and register the data flow controller that handles both PULL and PUSH
-        var opcUaDataFlowController = new OpcUaDataFlowController(publicEndpoint, edrService, opcUaPushService);
+        var opcUaDataFlowController = new OpcUaDataFlowController(publicEndpoint, edrService, opcUaPushService,
+                opcUaClientService, rateLimiter, transferLimits, monitor);
         dataFlowManager.register(opcUaDataFlowController);
+        // also exposed directly, for callers that start or terminate transfers in bulk
+        context.registerService(OpcUaDataFlowController.class, opcUaDataFlowController);
+
+        // Long-polling pulls wait without holding a request thread; each watched source is read once per interval
+        var longPollInterval = context.getSetting("edc.opcua.edr.longpoll.interval", 500L);
+        if (longPollInterval <= 0) {
+            throw new EdcException("edc.opcua.edr.longpoll.interval must be positive, was " + longPollInterval);
+        }
+        var longPollThreads = context.getSetting("edc.opcua.edr.longpoll.threads", 2);
+        if (longPollThreads <= 0) {
+            throw new EdcException("edc.opcua.edr.longpoll.threads must be positive, was " + longPollThreads);
+        }
+        changeWatcher = new EdrChangeWatcher(opcUaClientService, Duration.ofMillis(longPollInterval), longPollThreads, monitor);
 
         // Register EDR API controller for HTTP-PULL endpoints
-        var edrApiController = new EdrApiController(edrService, opcUaClientService, monitor);
+        var edrApiController = new EdrApiController(edrService, opcUaClientService, rateLimiter, changeWatcher, monitor);
         webService.registerResource("default", edrApiController);
 
         monitor.info("OPC UA Extension initialized with EDR endpoint: " + publicEndpoint);
@@ -60,4 +97,21 @@ public class OpcUaExtension implements ServiceExtension {
         monitor.debug("- HTTP-PULL: Consumer pulls data via EDR endpoints");
         monitor.debug("- HTTP-PUSH: Provider actively pushes data to consumer endpoints");
     }
+
+    @Override
+    public void shutdown() {
+        if (changeWatcher != null) {
+            changeWatcher.close();
+        }
+        if (opcUaClientService != null) {
+            monitor.info("OPC UA reads: %d sent to servers, %d coalesced into in-flight reads"
+                    .formatted(opcUaClientService.getReadCount(), opcUaClientService.getCoalescedReadCount()));
+            opcUaClientService.close();
+        }
+        if (rateLimiter != null) {
+            monitor.info("EDR rate limiter: %d allowed, %d rejected per transfer, %d rejected per consumer (saturation %.2f)"
+                    .formatted(rateLimiter.getAllowedCount(), rateLimiter.getRejectedByTransferCount(),
+                            rateLimiter.getRejectedByConsumerCount(), rateLimiter.getSaturation()));
+        }
+    }
 }
\ No newline at end of file
@@ -1,5 +1,45 @@
 package org.eclipse.edc.opcua.client;
 
+import org.eclipse.edc.opcua.model.OpcUaReading;
+import org.eclipse.edc.opcua.model.OpcUaSourceDescriptor;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface OpcUaClientService {
-    Object readValue(String endpoint, String nodeId) throws Exception;
-}
\ No newline at end of file
+
+    /**
+     * Reads the values of all given nodes in one batched request. The readings are returned in the order of the nodes.
+     */
+    List<OpcUaReading> readAll(String endpoint, List<NodeId> nodeIds) throws Exception;
+
+    /**
+     * Recursively browses the hierarchy below {@code root} and returns all variable nodes found, up to {@code maxDepth}
+     * levels deep.
+     */
+    List<NodeId> browseVariables(String endpoint, NodeId root, int maxDepth) throws Exception;
+
+    /**
+     * Reads the whole node set of a source: its explicit nodes plus, if a browse root is set, every variable below it.
+     */
+    List<OpcUaReading> read(OpcUaSourceDescriptor source) throws Exception;
+
+    /**
+     * Opens the session to the source's server, or reuses an open one, and resolves its node set in the background,
+     * so that the first read does not pay the connection cost.
+     */
+    CompletableFuture<Void> warmUp(OpcUaSourceDescriptor source);
+
+    default OpcUaReading read(String endpoint, NodeId nodeId) throws Exception {
+        return readAll(endpoint, List.of(nodeId)).get(0);
+    }
+
+    default OpcUaReading read(String endpoint, String nodeId) throws Exception {
+        return read(endpoint, NodeId.parse(nodeId.trim()));
+    }
+
+    default Object readValue(String endpoint, String nodeId) throws Exception {
+        return read(endpoint, nodeId).value();
+    }
+}
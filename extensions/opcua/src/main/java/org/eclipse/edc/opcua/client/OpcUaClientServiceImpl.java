@@ -1,41 +1,354 @@
 package org.eclipse.edc.opcua.client;
 
+import org.eclipse.edc.opcua.model.OpcUaReading;
+import org.eclipse.edc.opcua.model.OpcUaSourceDescriptor;
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
-import org.eclipse.milo.opcua.sdk.client.api.identity.AnonymousProvider;
+import org.eclipse.milo.opcua.sdk.client.api.config.OpcUaClientConfig;
+import org.eclipse.milo.opcua.stack.client.DiscoveryClient;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.Identifiers;
+import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ByteString;
 import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
 import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
 import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.BrowseDirection;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.BrowseResultMask;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.NodeClass;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.BrowseDescription;
+import org.eclipse.milo.opcua.stack.core.types.structured.BrowseResult;
+import org.eclipse.milo.opcua.stack.core.util.SelfSignedCertificateBuilder;
+import org.eclipse.milo.opcua.stack.core.util.SelfSignedCertificateGenerator;
 
+import java.security.KeyPair;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+/**
+ * Reads OPC UA values. One session per {@link OpcUaEndpoint}, that is per server, security settings and user, is opened
+ * on first use (or on {@link #warmUp}) and shared by all reads until it fails. Concurrent reads of the same
+ * {@code (endpoint, nodeIds, attribute)} are coalesced: the first caller performs the read, all callers that arrive
+ * while it is in flight join it and receive the same result.
+ * <p>
+ * The session uses a server endpoint that offers the requested security policy and message security mode; if the
+ * server offers none, connecting fails rather than falling back to a weaker endpoint. Secured endpoints are connected
+ * with a self-signed application certificate that is created on first use and must be trusted by the server. The
+ * server certificate is not validated.
+ */
 public class OpcUaClientServiceImpl implements OpcUaClientService {
 
+    private static final int MAX_BROWSED_NODES = 10_000;
+    private static final Duration BROWSE_CACHE_TTL = Duration.ofMinutes(1);
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+    private static final String APPLICATION_NAME = "EDC OPC UA Client";
+    private static final String APPLICATION_URI = "urn:edc:opcua:client";
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<OpcUaEndpoint, CompletableFuture<OpcUaClient>> sessions = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<ReadKey, CompletableFuture<List<OpcUaReading>>> inFlightReads = new ConcurrentHashMap<>();
+    private final Map<BrowseKey, BrowsedNodes> browseCache = new ConcurrentHashMap<>();
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong coalescedReads = new AtomicLong();
+    private ApplicationCertificate applicationCertificate;
+
+    @Override
+    public List<OpcUaReading> readAll(String endpoint, List<NodeId> nodeIds) throws Exception {
+        return readAll(OpcUaEndpoint.of(requireEndpoint(endpoint)), nodeIds);
+    }
+
+    @Override
+    public List<NodeId> browseVariables(String endpoint, NodeId root, int maxDepth) throws Exception {
+        return browseVariables(OpcUaEndpoint.of(requireEndpoint(endpoint)), root, maxDepth);
+    }
+
     @Override
-    public Object readValue(String endpoint, String nodeId) throws Exception {
+    public List<OpcUaReading> read(OpcUaSourceDescriptor source) throws Exception {
+        return readAll(endpointOf(source), resolveNodes(source));
+    }
+
+    @Override
+    public CompletableFuture<Void> warmUp(OpcUaSourceDescriptor source) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                session(endpointOf(source));
+                resolveNodes(source);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Disconnects all open sessions.
+     */
+    public void close() {
+        sessions.keySet().forEach(this::invalidate);
+        executor.shutdown();
+    }
+
+    /**
+     * Number of reads that were actually sent to an OPC UA server.
+     */
+    public long getReadCount() {
+        return reads.get();
+    }
+
+    /**
+     * Number of reads that joined an already outstanding read instead of contacting the server.
+     */
+    public long getCoalescedReadCount() {
+        return coalescedReads.get();
+    }
+
+    private List<OpcUaReading> readAll(OpcUaEndpoint endpoint, List<NodeId> nodeIds) throws Exception {
+        var key = new ReadKey(endpoint, List.copyOf(nodeIds), AttributeId.Value.uid());
+
+        var future = new CompletableFuture<List<OpcUaReading>>();
+        var inFlight = inFlightReads.putIfAbsent(key, future);
+        if (inFlight != null) {
+            coalescedReads.incrementAndGet();
+            return join(inFlight);
+        }
+
+        try {
+            reads.incrementAndGet();
+            future.complete(doRead(endpoint, key.nodeIds()));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        } finally {
+            inFlightReads.remove(key, future);
+        }
+        return join(future);
+    }
+
+    private List<NodeId> browseVariables(OpcUaEndpoint endpoint, NodeId root, int maxDepth) throws Exception {
+        var client = session(endpoint);
+        try {
+            var variables = new LinkedHashSet<NodeId>();
+            browse(client, root, maxDepth, new HashSet<>(), variables);
+            return List.copyOf(variables);
+        } catch (Exception e) {
+            invalidate(endpoint);
+            throw e;
+        }
+    }
+
+    private List<NodeId> resolveNodes(OpcUaSourceDescriptor source) throws Exception {
+        if (source.browseRoot() == null) {
+            return source.nodeIds();
+        }
+
+        // browse results are cached for a short while, so that polling a folder does not browse it on every read
+        var endpoint = endpointOf(source);
+        var key = new BrowseKey(endpoint, source.browseRoot(), source.browseDepth());
+        var cached = browseCache.get(key);
+        if (cached == null || cached.isExpired()) {
+            cached = new BrowsedNodes(browseVariables(endpoint, source.browseRoot(), source.browseDepth()),
+                    System.nanoTime() + BROWSE_CACHE_TTL.toNanos());
+            browseCache.put(key, cached);
+        }
+
+        var nodeIds = new LinkedHashSet<>(source.nodeIds());
+        nodeIds.addAll(cached.nodeIds());
+        return List.copyOf(nodeIds);
+    }
+
+    private List<OpcUaReading> doRead(OpcUaEndpoint endpoint, List<NodeId> nodeIds) throws Exception {
+        var client = session(endpoint);
+        try {
+            var dataValues = client.readValues(0, TimestampsToReturn.Both, nodeIds).get();
+            var readings = new ArrayList<OpcUaReading>(dataValues.size());
+            for (var i = 0; i < dataValues.size(); i++) {
+                var dataValue = dataValues.get(i);
+                var sourceTime = dataValue.getSourceTime();
+                readings.add(new OpcUaReading(nodeIds.get(i), dataValue.getValue().getValue(), sourceTime == null ? null : sourceTime.getJavaInstant()));
+            }
+            return readings;
+        } catch (Exception e) {
+            invalidate(endpoint);
+            throw e;
+        }
+    }
+
+    private void browse(OpcUaClient client, NodeId node, int remainingDepth, HashSet<NodeId> visited, LinkedHashSet<NodeId> variables) throws Exception {
+        if (remainingDepth < 0 || !visited.add(node) || variables.size() >= MAX_BROWSED_NODES) {
+            return;
+        }
+
+        var description = new BrowseDescription(
+                node,
+                BrowseDirection.Forward,
+                Identifiers.HierarchicalReferences,
+                true,
+                uint(NodeClass.Object.getValue() | NodeClass.Variable.getValue()),
+                uint(BrowseResultMask.All.getValue())
+        );
+
+        var children = new ArrayList<NodeId>();
+        var variableChildren = new ArrayList<NodeId>();
+        BrowseResult result = client.browse(description).get();
+        while (true) {
+            if (result.getReferences() != null) {
+                for (var reference : result.getReferences()) {
+                    var childId = reference.getNodeId().toNodeId(client.getNamespaceTable());
+                    if (childId.isEmpty()) {
+                        continue;
+                    }
+                    if (reference.getNodeClass() == NodeClass.Variable) {
+                        variableChildren.add(childId.get());
+                    } else {
+                        children.add(childId.get());
+                    }
+                }
+            }
+            ByteString continuationPoint = result.getContinuationPoint();
+            if (continuationPoint == null || continuationPoint.isNull()) {
+                break;
+            }
+            result = client.browseNext(false, continuationPoint).get();
+        }
+
+        for (var variable : variableChildren) {
+            if (variables.size() >= MAX_BROWSED_NODES) {
+                return;
+            }
+            variables.add(variable);
+        }
+        for (var child : children) {
+            browse(client, child, remainingDepth - 1, visited, variables);
+        }
+    }
+
+    private OpcUaClient session(OpcUaEndpoint endpoint) throws Exception {
+        var session = sessions.computeIfAbsent(endpoint, key -> {
+            var future = new CompletableFuture<OpcUaClient>();
+            executor.execute(() -> {
+                try {
+                    var client = connect(key);
+                    // the connect was given up on in the meantime, nobody will use or close this client
+                    if (!future.complete(client)) {
+                        client.disconnect();
+                    }
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+            return future;
+        });
+
+        try {
+            return session.get(CONNECT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException | CancellationException e) {
+            sessions.remove(endpoint, session);
+            session.cancel(false);
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void invalidate(OpcUaEndpoint endpoint) {
+        var session = sessions.remove(endpoint);
+        if (session != null) {
+            session.thenCompose(OpcUaClient::disconnect);
+        }
+    }
+
+    private OpcUaClient connect(OpcUaEndpoint endpoint) throws Exception {
+        var selected = DiscoveryClient.getEndpoints(endpoint.url()).get(CONNECT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS).stream()
+                .filter(endpoint::accepts)
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("OPC UA server offers no endpoint matching " + endpoint));
+
+        var config = OpcUaClientConfig.builder()
+                .setEndpoint(selected)
+                .setApplicationName(LocalizedText.english(APPLICATION_NAME))
+                .setApplicationUri(APPLICATION_URI)
+                .setIdentityProvider(endpoint.identityProvider())
+                .setRequestTimeout(UInteger.valueOf(15000));
+        if (!SecurityPolicy.None.getUri().equals(selected.getSecurityPolicyUri())) {
+            var certificate = applicationCertificate();
+            config.setKeyPair(certificate.keyPair()).setCertificate(certificate.certificate());
+        }
+
+        var client = OpcUaClient.create(config.build());
+        try {
+            client.connect().get(CONNECT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            client.disconnect();
+            throw e;
+        }
+        return client;
+    }
+
+    private synchronized ApplicationCertificate applicationCertificate() throws Exception {
+        if (applicationCertificate == null) {
+            var keyPair = SelfSignedCertificateGenerator.generateRsaKeyPair(2048);
+            var certificate = new SelfSignedCertificateBuilder(keyPair)
+                    .setCommonName(APPLICATION_NAME)
+                    .setApplicationUri(APPLICATION_URI)
+                    .build();
+            applicationCertificate = new ApplicationCertificate(keyPair, certificate);
+        }
+        return applicationCertificate;
+    }
+
+    private static OpcUaEndpoint endpointOf(OpcUaSourceDescriptor source) {
+        requireEndpoint(source.serverUrl());
+        return OpcUaEndpoint.of(source);
+    }
+
+    private static String requireEndpoint(String endpoint) {
         var endpointUrl = endpoint == null ? null : endpoint.trim();
         if (endpointUrl == null || endpointUrl.isEmpty()) {
             throw new IllegalArgumentException("OPC UA endpoint must not be null/blank");
         }
+        return endpointUrl;
+    }
 
-        var node = NodeId.parse(nodeId.trim());
+    private static List<OpcUaReading> join(CompletableFuture<List<OpcUaReading>> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 
-        var client = OpcUaClient.create(
-                endpointUrl,
-                endpoints -> endpoints.stream().findFirst(),
-                configBuilder -> configBuilder
-                        .setApplicationName(LocalizedText.english("EDC OPC UA Client"))
-                        .setApplicationUri("urn:edc:opcua:client")
-                        .setIdentityProvider(new AnonymousProvider())
-                        .setRequestTimeout(UInteger.valueOf(15000))
-                        .build()
-        );
+    private record ReadKey(OpcUaEndpoint endpoint, List<NodeId> nodeIds, UInteger attributeId) {
+    }
 
-        client.connect().get();
+    private record BrowseKey(OpcUaEndpoint endpoint, NodeId root, int depth) {
+    }
 
-        try {
-            var dataValue = client.readValue(0, TimestampsToReturn.Both, node).get();
-            return dataValue.getValue().getValue();
-        } finally {
-            client.disconnect().get();
+    private record ApplicationCertificate(KeyPair keyPair, X509Certificate certificate) {
+    }
+
+    private record BrowsedNodes(List<NodeId> nodeIds, long expiresAt) {
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package org.eclipse.edc.opcua.client;
+
+import org.eclipse.edc.opcua.model.OpcUaSourceDescriptor;
+import org.eclipse.milo.opcua.sdk.client.api.identity.AnonymousProvider;
+import org.eclipse.milo.opcua.sdk.client.api.identity.IdentityProvider;
+import org.eclipse.milo.opcua.sdk.client.api.identity.UsernameProvider;
+import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MessageSecurityMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.UserTokenType;
+import org.eclipse.milo.opcua.stack.core.types.structured.EndpointDescription;
+
+import java.util.Arrays;
+
+/**
+ * A server together with the security and the identity a session to it must use. Sessions are shared per endpoint, so
+ * that a source never reuses a session that was opened with weaker security or another user.
+ *
+ * @param url                 the OPC UA endpoint url
+ * @param securityPolicy      required security policy, or {@code null} for any
+ * @param messageSecurityMode required message security mode, or {@code null} for any
+ * @param username            user name, or {@code null} for an anonymous session
+ * @param password            password of the user, or {@code null}
+ */
+public record OpcUaEndpoint(String url, SecurityPolicy securityPolicy, MessageSecurityMode messageSecurityMode, String username, String password) {
+
+    /**
+     * An anonymous endpoint without security requirements.
+     */
+    public static OpcUaEndpoint of(String url) {
+        return new OpcUaEndpoint(url, null, null, null, null);
+    }
+
+    public static OpcUaEndpoint of(OpcUaSourceDescriptor source) {
+        return new OpcUaEndpoint(source.serverUrl(), source.securityPolicy(), source.messageSecurityMode(), source.username(), source.password());
+    }
+
+    /**
+     * Whether an endpoint offered by the server satisfies the security and identity requirements.
+     */
+    public boolean accepts(EndpointDescription endpoint) {
+        var policyMatches = securityPolicy == null || securityPolicy.getUri().equals(endpoint.getSecurityPolicyUri());
+        var modeMatches = messageSecurityMode == null || messageSecurityMode == endpoint.getSecurityMode();
+        var identityMatches = username == null || endpoint.getUserIdentityTokens() != null &&
+                Arrays.stream(endpoint.getUserIdentityTokens()).anyMatch(token -> token.getTokenType() == UserTokenType.UserName);
+        return policyMatches && modeMatches && identityMatches;
+    }
+
+    public IdentityProvider identityProvider() {
+        return username != null ? new UsernameProvider(username, password != null ? password : "") : new AnonymousProvider();
+    }
+
+    @Override
+    public String toString() {
+        // never log the password
+        return "%s (securityPolicy=%s, messageSecurityMode=%s, user=%s)".formatted(url,
+                securityPolicy != null ? securityPolicy : "any", messageSecurityMode != null ? messageSecurityMode : "any",
+                username != null ? username : "anonymous");
+    }
+}
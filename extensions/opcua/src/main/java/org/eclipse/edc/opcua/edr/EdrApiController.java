@@ -5,90 +5,177 @@ import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import org.eclipse.edc.opcua.client.OpcUaClientService;
+import org.eclipse.edc.opcua.model.OpcUaPayloads;
+import org.eclipse.edc.opcua.model.OpcUaReading;
+import org.eclipse.edc.opcua.model.OpcUaSourceDescriptor;
+import org.eclipse.edc.opcua.ratelimit.EdrRateLimiter;
 import org.eclipse.edc.spi.monitor.Monitor;
 
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
 @Path("/edr")
 public class EdrApiController {
 
-    private static final String EDC_NAMESPACE = "https://w3id.org/edc/v0.0.1/ns/";
+    private static final long MAX_WAIT_SECONDS = 30;
 
     private final EdrService edrService;
     private final OpcUaClientService opcUaClientService;
+    private final EdrRateLimiter rateLimiter;
+    private final EdrChangeWatcher changeWatcher;
     private final Monitor monitor;
 
-    public EdrApiController(EdrService edrService, OpcUaClientService opcUaClientService, Monitor monitor) {
+    public EdrApiController(EdrService edrService, OpcUaClientService opcUaClientService, EdrRateLimiter rateLimiter, EdrChangeWatcher changeWatcher,
+                            Monitor monitor) {
         this.edrService = edrService;
         this.opcUaClientService = opcUaClientService;
+        this.rateLimiter = rateLimiter;
+        this.changeWatcher = changeWatcher;
         this.monitor = monitor;
     }
 
     @GET
     @Path("/{transferId}/data")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getData(
+    public void getData(
             @PathParam("transferId") String transferId,
-            @HeaderParam(HttpHeaders.AUTHORIZATION) String authHeader) {
+            @HeaderParam(HttpHeaders.AUTHORIZATION) String authHeader,
+            @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch,
+            @QueryParam("wait") Long waitSeconds,
+            @Suspended AsyncResponse response) {
 
         // Validate authorization
         var expectedToken = edrService.getAuthToken(transferId);
         if (expectedToken == null) {
-            return Response.status(Response.Status.NOT_FOUND)
+            response.resume(Response.status(Response.Status.NOT_FOUND)
                     .entity("{\"error\": \"Transfer not found\"}")
-                    .build();
+                    .build());
+            return;
         }
 
         if (authHeader == null || !authHeader.equals(expectedToken)) {
-            return Response.status(Response.Status.UNAUTHORIZED)
+            response.resume(Response.status(Response.Status.UNAUTHORIZED)
                     .entity("{\"error\": \"Invalid authorization\"}")
-                    .build();
+                    .build());
+            return;
+        }
+
+        if (edrService.isSuspended(transferId)) {
+            response.resume(Response.status(Response.Status.CONFLICT)
+                    .entity("{\"error\": \"Transfer is suspended\"}")
+                    .build());
+            return;
         }
 
-        // Get stored OPC UA connection details
-        var opcUaAddress = edrService.getOpcUaAddress(transferId);
-        if (opcUaAddress == null) {
-            return Response.status(Response.Status.NOT_FOUND)
+        var decision = rateLimiter.tryAcquire(transferId);
+        if (!decision.allowed()) {
+            response.resume(Response.status(Response.Status.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, decision.retryAfterSeconds())
+                    .entity("{\"error\": \"Rate limit exceeded\"}")
+                    .build());
+            return;
+        }
+
+        // Get the OPC UA source compiled at transfer start
+        var source = edrService.getSource(transferId);
+        if (source == null) {
+            response.resume(Response.status(Response.Status.NOT_FOUND)
                     .entity("{\"error\": \"OPC UA address not found\"}")
-                    .build();
+                    .build());
+            return;
         }
 
+        List<OpcUaReading> readings;
         try {
-            var endpoint = firstNonBlank(
-                    opcUaAddress.getStringProperty("serverUrl"),
-                    opcUaAddress.getStringProperty(EDC_NAMESPACE + "serverUrl")
-            );
-            var nodeId = firstNonBlank(
-                    opcUaAddress.getStringProperty("nodeId"),
-                    opcUaAddress.getStringProperty(EDC_NAMESPACE + "nodeId")
-            );
-
-            if (isBlank(endpoint) || isBlank(nodeId)) {
-                monitor.warning("Missing OPC UA properties for transfer " + transferId +
-                        " (endpoint=" + endpoint + ", nodeId=" + nodeId + ")");
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity("{\"error\": \"Missing OPC UA endpoint and/or nodeId in stored data address\"}")
-                        .build();
-            }
+            readings = opcUaClientService.read(source);
+        } catch (Exception e) {
+            response.resume(readFailed(transferId, e));
+            return;
+        }
 
-            monitor.debug("Reading OPC UA data from endpoint: " + endpoint + ", nodeId: " + nodeId);
+        var fingerprint = OpcUaPayloads.fingerprint(readings);
+        if (!matches(ifNoneMatch, fingerprint) || waitSeconds == null || waitSeconds <= 0) {
+            response.resume(dataResponse(source, readings, ifNoneMatch));
+            return;
+        }
 
-            var value = opcUaClientService.readValue(endpoint, nodeId);
+        // long-poll: the request is released and resumed once the value changes or the wait time expires
+        changeWatcher.awaitChange(source, fingerprint, Duration.ofSeconds(Math.min(waitSeconds, MAX_WAIT_SECONDS)))
+                .whenComplete((changed, failure) -> {
+                    if (failure != null) {
+                        response.resume(readFailed(transferId, failure));
+                    } else {
+                        response.resume(dataResponse(source, changed, ifNoneMatch));
+                    }
+                });
+    }
 
-            return Response.ok("{\"value\": \"" + value + "\", \"nodeId\": \"" + nodeId + "\"}")
-                    .build();
-        } catch (Exception e) {
-            monitor.warning("Failed to read OPC UA data for transfer " + transferId, e);
-            return Response.serverError()
-                    .entity("{\"error\": \"" + e.getMessage() + "\"}")
-                    .build();
+    private static Response dataResponse(OpcUaSourceDescriptor source, List<OpcUaReading> readings, String ifNoneMatch) {
+        var fingerprint = OpcUaPayloads.fingerprint(readings);
+        var entityTag = new EntityTag(fingerprint);
+        if (matches(ifNoneMatch, fingerprint)) {
+            return withValidators(Response.notModified(entityTag), readings).build();
         }
+        return withValidators(Response.ok(body(source, readings)).tag(entityTag), readings).build();
     }
 
-    private static String firstNonBlank(String a, String b) {
-        return isBlank(a) ? b : a;
+    private Response readFailed(String transferId, Throwable failure) {
+        monitor.warning("Failed to read OPC UA data for transfer " + transferId, failure);
+        return Response.serverError()
+                .entity("{\"error\": \"" + OpcUaPayloads.escape(String.valueOf(failure.getMessage())) + "\"}")
+                .build();
+    }
+
+    /**
+     * A single node keeps the original {@code {"value": ..., "nodeId": ...}} document, whose source time is only sent
+     * as the {@code Last-Modified} header; a node set is returned as {@code {"values": [...]}}.
+     */
+    private static String body(OpcUaSourceDescriptor source, List<OpcUaReading> readings) {
+        if (source.isSingleNode()) {
+            var reading = readings.get(0);
+            return "{\"value\": \"" + OpcUaPayloads.escape(OpcUaPayloads.valueString(reading.value())) + "\", \"nodeId\": \"" + OpcUaPayloads.escape(source.nodeIdStrings().get(0)) + "\"}";
+        }
+        return "{\"values\": " + OpcUaPayloads.readingsArray(readings) + "}";
+    }
+
+    private static Response.ResponseBuilder withValidators(Response.ResponseBuilder builder, List<OpcUaReading> readings) {
+        readings.stream()
+                .map(OpcUaReading::sourceTimestamp)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .ifPresent(lastModified -> builder.lastModified(Date.from(lastModified)));
+        return builder.header(HttpHeaders.CACHE_CONTROL, "no-cache");
+    }
+
+    /**
+     * Whether one of the entity tags in {@code If-None-Match} is the current one. {@code *} is not honoured: it would
+     * answer even the first request with 304 Not Modified.
+     */
+    private static boolean matches(String ifNoneMatch, String fingerprint) {
+        if (isBlank(ifNoneMatch)) {
+            return false;
+        }
+        for (var candidate : ifNoneMatch.split(",")) {
+            var tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("\"" + fingerprint + "\"")) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private static boolean isBlank(String s) {
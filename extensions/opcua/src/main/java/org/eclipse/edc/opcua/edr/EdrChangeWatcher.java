@@ -0,0 +1,117 @@
+package org.eclipse.edc.opcua.edr;
+
+import org.eclipse.edc.opcua.client.OpcUaClientService;
+import org.eclipse.edc.opcua.model.OpcUaPayloads;
+import org.eclipse.edc.opcua.model.OpcUaReading;
+import org.eclipse.edc.opcua.model.OpcUaSourceDescriptor;
+import org.eclipse.edc.spi.monitor.Monitor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Waits for the values of a source to change, for long-polling pulls. No request thread is held while waiting.
+ * <p>
+ * All waiters of the same source share one scheduled read per interval, so the load on the OPC UA server depends on the
+ * number of watched sources, not on the number of waiting consumers, and the scheduled reads are not charged to a
+ * consumer's rate limit. A source is no longer read once nobody waits for it.
+ */
+public class EdrChangeWatcher {
+
+    private final OpcUaClientService clientService;
+    private final Duration interval;
+    private final Monitor monitor;
+    private final ScheduledExecutorService scheduler;
+    private final Map<OpcUaSourceDescriptor, Watch> watches = new HashMap<>();
+
+    public EdrChangeWatcher(OpcUaClientService clientService, Duration interval, int threads, Monitor monitor) {
+        this.clientService = clientService;
+        this.interval = interval;
+        this.monitor = monitor;
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "edr-long-poll");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Waits until the readings of the source no longer have the given fingerprint, or until the timeout expires.
+     *
+     * @return a future completed with the first changed readings, or with the latest readings when the timeout expires
+     */
+    public CompletableFuture<List<OpcUaReading>> awaitChange(OpcUaSourceDescriptor source, String fingerprint, Duration timeout) {
+        var waiter = new Waiter(fingerprint, System.nanoTime() + timeout.toNanos(), new CompletableFuture<>());
+        synchronized (watches) {
+            watches.computeIfAbsent(source, Watch::new).waiters.add(waiter);
+        }
+        return waiter.result();
+    }
+
+    public void close() {
+        scheduler.shutdownNow();
+        synchronized (watches) {
+            watches.values().forEach(watch -> watch.waiters.forEach(waiter -> waiter.result().cancel(false)));
+            watches.clear();
+        }
+    }
+
+    private final class Watch implements Runnable {
+        private final OpcUaSourceDescriptor source;
+        private final List<Waiter> waiters = new ArrayList<>();
+        private final ScheduledFuture<?> task;
+
+        private Watch(OpcUaSourceDescriptor source) {
+            this.source = source;
+            this.task = scheduler.scheduleWithFixedDelay(this, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            List<OpcUaReading> readings;
+            try {
+                readings = clientService.read(source);
+            } catch (Exception e) {
+                monitor.debug("Long-poll read of %s failed: %s".formatted(source.serverUrl(), e.getMessage()));
+                complete(waiter -> true, waiter -> waiter.result().completeExceptionally(e));
+                return;
+            }
+            var fingerprint = OpcUaPayloads.fingerprint(readings);
+            var now = System.nanoTime();
+            complete(waiter -> !waiter.fingerprint().equals(fingerprint) || now - waiter.deadline() >= 0,
+                    waiter -> waiter.result().complete(readings));
+        }
+
+        private void complete(Predicate<Waiter> done, Consumer<Waiter> completion) {
+            var completed = new ArrayList<Waiter>();
+            synchronized (watches) {
+                var iterator = waiters.iterator();
+                while (iterator.hasNext()) {
+                    var waiter = iterator.next();
+                    if (done.test(waiter)) {
+                        completed.add(waiter);
+                        iterator.remove();
+                    }
+                }
+                if (waiters.isEmpty()) {
+                    task.cancel(false);
+                    watches.remove(source, this);
+                }
+            }
+            completed.forEach(completion);
+        }
+    }
+
+    private record Waiter(String fingerprint, long deadline, CompletableFuture<List<OpcUaReading>> result) {
+    }
+}
@@ -1,14 +1,38 @@
 package org.eclipse.edc.opcua.edr;
 
-import org.eclipse.edc.spi.types.domain.DataAddress;
+import org.eclipse.edc.opcua.model.OpcUaSourceDescriptor;
+
+import java.util.Collection;
 
 public interface EdrService {
 
-    void storeEdr(String transferId, DataAddress opcUaAddress, String authToken);
+    void storeEdr(String transferId, OpcUaSourceDescriptor source, String authToken);
 
-    DataAddress getOpcUaAddress(String transferId);
+    OpcUaSourceDescriptor getSource(String transferId);
 
     String getAuthToken(String transferId);
 
     void removeEdr(String transferId);
+
+    /**
+     * Stores many EDRs at once, e.g. when a burst of transfers is started together.
+     */
+    void storeEdrs(Collection<Registration> registrations);
+
+    /**
+     * Removes many EDRs at once. Unknown transfer ids are ignored.
+     */
+    void removeEdrs(Collection<String> transferIds);
+
+    /**
+     * Marks the EDR as suspended. It stays registered, but must not serve data until it is resumed.
+     */
+    void suspendEdr(String transferId);
+
+    void resumeEdr(String transferId);
+
+    boolean isSuspended(String transferId);
+
+    record Registration(String transferId, OpcUaSourceDescriptor source, String authToken) {
+    }
 }
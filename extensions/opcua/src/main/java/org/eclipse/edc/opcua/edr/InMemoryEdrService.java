@@ -1,24 +1,27 @@
 package org.eclipse.edc.opcua.edr;
 
-import org.eclipse.edc.spi.types.domain.DataAddress;
+import org.eclipse.edc.opcua.model.OpcUaSourceDescriptor;
 
+import java.util.Collection;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class InMemoryEdrService implements EdrService {
 
-    private final Map<String, DataAddress> opcUaAddresses = new ConcurrentHashMap<>();
+    private final Map<String, OpcUaSourceDescriptor> sources = new ConcurrentHashMap<>();
     private final Map<String, String> authTokens = new ConcurrentHashMap<>();
+    private final Set<String> suspended = ConcurrentHashMap.newKeySet();
 
     @Override
-    public void storeEdr(String transferId, DataAddress opcUaAddress, String authToken) {
-        opcUaAddresses.put(transferId, opcUaAddress);
+    public void storeEdr(String transferId, OpcUaSourceDescriptor source, String authToken) {
+        sources.put(transferId, source);
         authTokens.put(transferId, authToken);
     }
 
     @Override
-    public DataAddress getOpcUaAddress(String transferId) {
-        return opcUaAddresses.get(transferId);
+    public OpcUaSourceDescriptor getSource(String transferId) {
+        return sources.get(transferId);
     }
 
     @Override
@@ -28,7 +31,37 @@ public class InMemoryEdrService implements EdrService {
 
     @Override
     public void removeEdr(String transferId) {
-        opcUaAddresses.remove(transferId);
+        sources.remove(transferId);
         authTokens.remove(transferId);
+        suspended.remove(transferId);
+    }
+
+    @Override
+    public void storeEdrs(Collection<Registration> registrations) {
+        for (var registration : registrations) {
+            storeEdr(registration.transferId(), registration.source(), registration.authToken());
+        }
+    }
+
+    @Override
+    public void removeEdrs(Collection<String> transferIds) {
+        transferIds.forEach(this::removeEdr);
+    }
+
+    @Override
+    public void suspendEdr(String transferId) {
+        if (sources.containsKey(transferId)) {
+            suspended.add(transferId);
+        }
+    }
+
+    @Override
+    public void resumeEdr(String transferId) {
+        suspended.remove(transferId);
+    }
+
+    @Override
+    public boolean isSuspended(String transferId) {
+        return suspended.contains(transferId);
     }
 }
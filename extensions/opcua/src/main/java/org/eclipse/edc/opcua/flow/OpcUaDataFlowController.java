@@ -1,19 +1,30 @@
-
 package org.eclipse.edc.opcua.flow;
 
 import org.eclipse.edc.connector.controlplane.asset.spi.domain.Asset;
 import org.eclipse.edc.connector.controlplane.transfer.spi.flow.DataFlowController;
 import org.eclipse.edc.connector.controlplane.transfer.spi.types.DataFlowResponse;
 import org.eclipse.edc.connector.controlplane.transfer.spi.types.TransferProcess;
+import org.eclipse.edc.opcua.client.OpcUaClientService;
+import org.eclipse.edc.opcua.client.OpcUaEndpoint;
 import org.eclipse.edc.opcua.edr.EdrService;
+import org.eclipse.edc.opcua.model.OpcUaSourceDescriptor;
 import org.eclipse.edc.opcua.push.OpcUaPushService;
+import org.eclipse.edc.opcua.ratelimit.EdrRateLimiter;
+import org.eclipse.edc.opcua.ratelimit.RateLimits;
 import org.eclipse.edc.policy.model.Policy;
+import org.eclipse.edc.spi.monitor.Monitor;
 import org.eclipse.edc.spi.response.ResponseStatus;
 import org.eclipse.edc.spi.response.StatusResult;
 import org.eclipse.edc.spi.types.domain.DataAddress;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 public class OpcUaDataFlowController implements DataFlowController {
 
@@ -23,11 +34,21 @@ public class OpcUaDataFlowController implements DataFlowController {
     private final String publicEndpointBase;
     private final EdrService edrService;
     private final OpcUaPushService opcUaPushService;
+    private final OpcUaClientService opcUaClientService;
+    private final EdrRateLimiter rateLimiter;
+    private final RateLimits defaultTransferLimits;
+    private final Monitor monitor;
 
-    public OpcUaDataFlowController(String publicEndpointBase, EdrService edrService, OpcUaPushService opcUaPushService) {
+    public OpcUaDataFlowController(String publicEndpointBase, EdrService edrService, OpcUaPushService opcUaPushService,
+                                   OpcUaClientService opcUaClientService, EdrRateLimiter rateLimiter,
+                                   RateLimits defaultTransferLimits, Monitor monitor) {
         this.publicEndpointBase = publicEndpointBase;
         this.edrService = edrService;
         this.opcUaPushService = opcUaPushService;
+        this.opcUaClientService = opcUaClientService;
+        this.rateLimiter = rateLimiter;
+        this.defaultTransferLimits = defaultTransferLimits;
+        this.monitor = monitor;
     }
 
     @Override
@@ -48,21 +69,74 @@ public class OpcUaDataFlowController implements DataFlowController {
 
     @Override
     public StatusResult<DataFlowResponse> start(TransferProcess transferProcess, Policy policy) {
-        var contentDataAddress = transferProcess.getContentDataAddress();
-        if (contentDataAddress == null) {
-            return StatusResult.failure(ResponseStatus.FATAL_ERROR, "No content data address available");
-        }
+        return startAll(List.of(transferProcess), tp -> policy).get(transferProcess.getId());
+    }
 
-        String transferType = transferProcess.getTransferType();
+    /**
+     * Starts a batch of transfers. Compared to starting them one by one, sessions are warmed up once per OPC UA endpoint
+     * and browse root instead of once per transfer, and the EDRs of all pull transfers are handed to the EDR service in
+     * one call.
+     *
+     * @param transferProcesses the transfers to start
+     * @param policies          provides the contract policy of each transfer
+     * @return the result of each transfer, keyed by transfer id, in the order of the given transfers
+     */
+    public Map<String, StatusResult<DataFlowResponse>> startAll(List<TransferProcess> transferProcesses, Function<TransferProcess, Policy> policies) {
+        var results = new LinkedHashMap<String, StatusResult<DataFlowResponse>>();
+        var registrations = new ArrayList<EdrService.Registration>();
+        var warmUps = new LinkedHashMap<WarmUp, OpcUaSourceDescriptor>();
 
-        if ("HttpData-PUSH".equalsIgnoreCase(transferType)) {
-            return handlePushTransfer(transferProcess);
-        } else {
-            return handlePullTransfer(transferProcess);
+        for (var transferProcess : transferProcesses) {
+            var transferId = transferProcess.getId();
+            var contentDataAddress = transferProcess.getContentDataAddress();
+            if (contentDataAddress == null) {
+                results.put(transferId, StatusResult.failure(ResponseStatus.FATAL_ERROR, "No content data address available"));
+                continue;
+            }
+
+            // validate and compile the source once, so that malformed addresses fail here and not on every read
+            var sourceResult = OpcUaSourceDescriptor.parse(contentDataAddress);
+            if (sourceResult.failed()) {
+                results.put(transferId, StatusResult.failure(ResponseStatus.FATAL_ERROR, "Invalid OPC UA data address: " + sourceResult.getFailureDetail()));
+                continue;
+            }
+            var source = sourceResult.getContent();
+            var push = isPush(transferProcess);
+
+            // a suspended transfer is resumed by starting it again: continue on the existing session and state
+            if (push && opcUaPushService.resumePushing(transferId)) {
+                results.put(transferId, StatusResult.success(pushResponse()));
+                continue;
+            }
+            var existingToken = push ? null : edrService.getAuthToken(transferId);
+            if (existingToken != null) {
+                edrService.resumeEdr(transferId);
+                results.put(transferId, StatusResult.success(pullResponse(transferId, existingToken)));
+                continue;
+            }
+
+            warmUps.putIfAbsent(new WarmUp(OpcUaEndpoint.of(source), source.browseRoot(), source.browseDepth()), source);
+
+            if (push) {
+                results.put(transferId, handlePushTransfer(transferProcess, source));
+            } else {
+                results.put(transferId, handlePullTransfer(transferProcess, source, policies.apply(transferProcess), registrations));
+            }
         }
+
+        edrService.storeEdrs(registrations);
+
+        // open the sessions in the background, so that the first pull or push tick does not pay the connection cost
+        warmUps.values().forEach(source -> opcUaClientService.warmUp(source).whenComplete((v, throwable) -> {
+            if (throwable != null) {
+                monitor.warning("Failed to warm up OPC UA session for " + source.serverUrl() + ": " + throwable.getMessage());
+            }
+        }));
+
+        return results;
     }
 
-    private StatusResult<DataFlowResponse> handlePushTransfer(TransferProcess transferProcess) {
+    private StatusResult<DataFlowResponse> handlePushTransfer(TransferProcess transferProcess, OpcUaSourceDescriptor source) {
         var dataDestination = transferProcess.getDataDestination();
         if (dataDestination == null) {
             return StatusResult.failure(ResponseStatus.FATAL_ERROR, "No data destination for push transfer");
@@ -78,28 +152,43 @@ public class OpcUaDataFlowController implements DataFlowController {
 
         opcUaPushService.startPushing(
                 transferProcess.getId(),
-                transferProcess.getContentDataAddress(),
+                source,
                 consumerUrl,
                 authToken,
                 method != null ? method : "POST"
         );
 
-        var response = DataFlowResponse.Builder.newInstance()
+        return StatusResult.success(pushResponse());
+    }
+
+    private StatusResult<DataFlowResponse> handlePullTransfer(TransferProcess transferProcess, OpcUaSourceDescriptor source, Policy policy,
+                                                              List<EdrService.Registration> registrations) {
+        var transferId = transferProcess.getId();
+        var authToken = UUID.randomUUID().toString();
+
+        RateLimits transferLimits;
+        try {
+            transferLimits = transferLimits(source, policy);
+        } catch (NumberFormatException e) {
+            return StatusResult.failure(ResponseStatus.FATAL_ERROR, "Invalid rate limit: " + e.getMessage());
+        }
+
+        registrations.add(new EdrService.Registration(transferId, source, authToken));
+        rateLimiter.register(transferId, policy != null ? policy.getAssignee() : null, transferLimits);
+
+        return StatusResult.success(pullResponse(transferId, authToken));
+    }
+
+    private DataFlowResponse pushResponse() {
+        return DataFlowResponse.Builder.newInstance()
                 .dataAddress(DataAddress.Builder.newInstance()
                         .type("opcua-push")
                         .property("status", "active")
                         .build())
                 .build();
-
-        return StatusResult.success(response);
     }
 
-    private StatusResult<DataFlowResponse> handlePullTransfer(TransferProcess transferProcess) {
-        var transferId = transferProcess.getId();
-        var authToken = UUID.randomUUID().toString();
-
-        edrService.storeEdr(transferId, transferProcess.getContentDataAddress(), authToken);
-
+    private DataFlowResponse pullResponse(String transferId, String authToken) {
         var dataAddress = DataAddress.Builder.newInstance()
                 .type(OPCUA_TYPE)
                 .property(EDC_NAMESPACE + "endpoint", publicEndpointBase + "/" + transferId + "/data")
@@ -108,28 +197,42 @@ public class OpcUaDataFlowController implements DataFlowController {
                 .property("authorization", authToken)
                 .build();
 
-        var response = DataFlowResponse.Builder.newInstance()
+        return DataFlowResponse.Builder.newInstance()
                 .dataAddress(dataAddress)
                 .build();
-
-        return StatusResult.success(response);
     }
 
     @Override
     public StatusResult<Void> terminate(TransferProcess transferProcess) {
-        String transferType = transferProcess.getTransferType();
+        return terminateAll(List.of(transferProcess));
+    }
 
-        if ("HttpData-PUSH".equalsIgnoreCase(transferType)) {
-            opcUaPushService.stopPushing(transferProcess.getId());
-        } else {
-            edrService.removeEdr(transferProcess.getId());
+    /**
+     * Terminates a batch of transfers, removing the EDRs of all pull transfers in one bulk operation.
+     */
+    public StatusResult<Void> terminateAll(List<TransferProcess> transferProcesses) {
+        var pullTransferIds = new ArrayList<String>();
+        for (var transferProcess : transferProcesses) {
+            if (isPush(transferProcess)) {
+                opcUaPushService.stopPushing(transferProcess.getId());
+            } else {
+                pullTransferIds.add(transferProcess.getId());
+                rateLimiter.unregister(transferProcess.getId());
+            }
         }
+        edrService.removeEdrs(pullTransferIds);
 
         return StatusResult.success();
     }
 
     @Override
     public StatusResult<Void> suspend(TransferProcess transferProcess) {
+        // pause delivery only; the OPC UA session, the push schedule and its buffered samples are kept for resuming
+        if (isPush(transferProcess)) {
+            opcUaPushService.pausePushing(transferProcess.getId());
+        } else {
+            edrService.suspendEdr(transferProcess.getId());
+        }
         return StatusResult.success();
     }
 
@@ -137,4 +240,41 @@ public class OpcUaDataFlowController implements DataFlowController {
     public Set<String> transferTypesFor(Asset asset) {
         return Set.of(OPCUA_TYPE);
     }
-}
\ No newline at end of file
+
+    /**
+     * Resolves the per-transfer rate limits. Properties on the contract policy take precedence over the ones on the
+     * asset's data address, which in turn take precedence over the configured defaults.
+     */
+    private RateLimits transferLimits(OpcUaSourceDescriptor source, Policy policy) {
+        var policyRate = policyProperty(policy, "rateLimit");
+        var policyBurst = policyProperty(policy, "rateLimitBurst");
+        var rate = policyRate != null ? Double.valueOf(RateLimits.parseRate(policyRate)) : source.rateLimit();
+        var burst = policyBurst != null ? Long.valueOf(RateLimits.parseBurst(policyBurst)) : source.rateLimitBurst();
+        if (rate == null && burst == null) {
+            return defaultTransferLimits;
+        }
+        var permitsPerSecond = rate != null ? rate : defaultTransferLimits.permitsPerSecond();
+        var burstSize = burst != null ? burst : Math.max(defaultTransferLimits.burst(), (long) Math.ceil(permitsPerSecond));
+        return new RateLimits(permitsPerSecond, burstSize);
+    }
+
+    private static boolean isPush(TransferProcess transferProcess) {
+        return "HttpData-PUSH".equalsIgnoreCase(transferProcess.getTransferType());
+    }
+
+    private static String policyProperty(Policy policy, String name) {
+        if (policy == null) {
+            return null;
+        }
+        var properties = policy.getExtensibleProperties();
+        var value = properties.containsKey(name) ? properties.get(name) : properties.get(EDC_NAMESPACE + name);
+        return value != null && !value.toString().isBlank() ? value.toString().trim() : null;
+    }
+
+    /**
+     * What a warm-up prepares: the session of an endpoint, which includes its security and user, and the nodes of a
+     * browse root.
+     */
+    private record WarmUp(OpcUaEndpoint endpoint, NodeId browseRoot, int browseDepth) {
+    }
+}
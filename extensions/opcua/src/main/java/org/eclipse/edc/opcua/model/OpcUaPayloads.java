@@ -0,0 +1,100 @@
+package org.eclipse.edc.opcua.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * JSON fragments shared by the pull and push payloads.
+ */
+public final class OpcUaPayloads {
+
+    private OpcUaPayloads() {
+    }
+
+    /**
+     * Renders readings as {@code [{"nodeId": "...", "value": "...", "sourceTimestamp": "..."}, ...]}.
+     */
+    public static String readingsArray(List<OpcUaReading> readings) {
+        var json = new StringBuilder(readings.size() * 64).append('[');
+        for (var i = 0; i < readings.size(); i++) {
+            var reading = readings.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"nodeId\":\"").append(escape(reading.nodeId().toParseableString()))
+                    .append("\",\"value\":\"").append(escape(valueString(reading.value()))).append('"');
+            if (reading.sourceTimestamp() != null) {
+                json.append(",\"sourceTimestamp\":\"").append(reading.sourceTimestamp()).append('"');
+            }
+            json.append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    /**
+     * Renders a value as text. Arrays are rendered element by element, so that equal values always render the same.
+     */
+    public static String valueString(Object value) {
+        if (value != null && value.getClass().isArray()) {
+            var deep = Arrays.deepToString(new Object[]{ value });
+            return deep.substring(1, deep.length() - 1);
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * A SHA-256 digest of the readings' node ids, values and source timestamps, which only changes when one of them does.
+     */
+    public static String fingerprint(List<OpcUaReading> readings) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(readingsArray(readings).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Escapes a value for use inside a JSON string: quotes, backslashes and the control characters U+0000 to U+001F.
+     */
+    public static String escape(String value) {
+        if (!needsEscaping(value)) {
+            return value;
+        }
+        var escaped = new StringBuilder(value.length() + 16);
+        for (var i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                case '\b' -> escaped.append("\\b");
+                case '\f' -> escaped.append("\\f");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append("\\u%04x".formatted((int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static boolean needsEscaping(String value) {
+        for (var i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
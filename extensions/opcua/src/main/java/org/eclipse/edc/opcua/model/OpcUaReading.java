@@ -0,0 +1,15 @@
+package org.eclipse.edc.opcua.model;
+
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+
+import java.time.Instant;
+
+/**
+ * A single value read from an OPC UA node, together with the timestamp reported by the source.
+ * The source timestamp is {@code null} if the server did not provide one.
+ */
+public record OpcUaReading(
+        NodeId nodeId,
+        Object value,
+        Instant sourceTimestamp
+) { }
@@ -0,0 +1,263 @@
+package org.eclipse.edc.opcua.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.edc.opcua.ratelimit.RateLimits;
+import org.eclipse.edc.spi.result.Result;
+import org.eclipse.edc.spi.types.domain.DataAddress;
+import org.eclipse.milo.opcua.stack.core.security.SecurityPolicy;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MessageSecurityMode;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Immutable, validated view of an OPC UA source {@link DataAddress}. It is compiled once when a transfer starts, so
+ * that pulls and push ticks never have to look at the raw data address again.
+ * <p>
+ * A source names one or more nodes: a single {@code nodeId}, a list of {@code nodeIds} (a JSON array, a string holding
+ * a JSON array, or a comma-separated string, in which a comma only separates if a node id follows), and/or a {@code browseRoot} folder that is expanded recursively into all of its variables.
+ *
+ * @param serverUrl           the OPC UA endpoint, e.g. {@code opc.tcp://localhost:4840}
+ * @param nodeIds             the parsed, explicitly listed nodes to read
+ * @param nodeIdStrings       the node ids as they were given in the data address, used in payloads
+ * @param browseRoot          folder whose variables are read as well, or {@code null}
+ * @param browseDepth         how many levels below the browse root are expanded
+ * @param pushInterval        interval between two push deliveries
+ * @param username            optional user name, the session is anonymous if not set
+ * @param password            optional password, requires a user name
+ * @param securityPolicy      required security policy, e.g. {@code Basic256Sha256}, or {@code null} for any
+ * @param messageSecurityMode required message security mode, e.g. {@code SignAndEncrypt}, or {@code null} for any
+ * @param encoding            payload encoding
+ * @param rateLimit           per-transfer requests per second, or {@code null} if not set
+ * @param rateLimitBurst      per-transfer burst allowance, or {@code null} if not set
+ */
+public record OpcUaSourceDescriptor(
+        String serverUrl,
+        List<NodeId> nodeIds,
+        List<String> nodeIdStrings,
+        NodeId browseRoot,
+        int browseDepth,
+        Duration pushInterval,
+        String username,
+        String password,
+        SecurityPolicy securityPolicy,
+        MessageSecurityMode messageSecurityMode,
+        String encoding,
+        Double rateLimit,
+        Long rateLimitBurst
+) {
+
+    public static final String ENCODING_JSON = "json";
+
+    private static final String EDC_NAMESPACE = "https://w3id.org/edc/v0.0.1/ns/";
+    private static final Duration DEFAULT_PUSH_INTERVAL = Duration.ofMillis(5000);
+    private static final int DEFAULT_BROWSE_DEPTH = 10;
+    private static final Set<String> SUPPORTED_ENCODINGS = Set.of(ENCODING_JSON);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // in a comma-separated list, only a comma followed by the start of a node id separates, so that string node ids
+    // such as ns=2;s=a,b stay intact
+    private static final Pattern NODE_ID_SEPARATOR = Pattern.compile(",\\s*(?=(ns|nsu|i|s|g|b)=)");
+
+    /**
+     * Validates the data address and compiles it into a descriptor.
+     *
+     * @return the descriptor, or a failure listing every problem found in the data address
+     */
+    public static Result<OpcUaSourceDescriptor> parse(DataAddress address) {
+        var problems = new ArrayList<String>();
+
+        var serverUrl = property(address, "serverUrl");
+        if (serverUrl == null) {
+            problems.add("Missing OPC UA serverUrl");
+        } else {
+            serverUrl = serverUrl.trim();
+        }
+
+        var nodeIdStrings = new ArrayList<String>();
+        var singleNodeId = property(address, "nodeId");
+        if (singleNodeId != null) {
+            nodeIdStrings.add(singleNodeId.trim());
+        }
+        try {
+            nodeIdStrings.addAll(listProperty(address, "nodeIds"));
+        } catch (IllegalArgumentException e) {
+            problems.add(e.getMessage());
+        }
+
+        var nodeIds = new ArrayList<NodeId>(nodeIdStrings.size());
+        for (var nodeIdString : nodeIdStrings) {
+            var nodeId = NodeId.parseOrNull(nodeIdString);
+            if (nodeId == null) {
+                problems.add("Invalid OPC UA nodeId '%s'".formatted(nodeIdString));
+            } else {
+                nodeIds.add(nodeId);
+            }
+        }
+
+        NodeId browseRoot = null;
+        var browseRootString = property(address, "browseRoot");
+        if (browseRootString != null) {
+            browseRoot = NodeId.parseOrNull(browseRootString.trim());
+            if (browseRoot == null) {
+                problems.add("Invalid OPC UA browseRoot '%s'".formatted(browseRootString));
+            }
+        }
+
+        if (nodeIdStrings.isEmpty() && browseRootString == null) {
+            problems.add("Missing OPC UA nodeId, nodeIds or browseRoot");
+        }
+
+        var browseDepth = DEFAULT_BROWSE_DEPTH;
+        var browseDepthString = property(address, "browseDepth");
+        if (browseDepthString != null) {
+            try {
+                browseDepth = Integer.parseInt(browseDepthString.trim());
+                if (browseDepth < 0) {
+                    problems.add("browseDepth must not be negative, was %s".formatted(browseDepthString));
+                }
+            } catch (NumberFormatException e) {
+                problems.add("Invalid browseDepth '%s'".formatted(browseDepthString));
+            }
+        }
+
+        var pushInterval = DEFAULT_PUSH_INTERVAL;
+        var pushIntervalString = property(address, "pushInterval");
+        if (pushIntervalString != null) {
+            try {
+                pushInterval = Duration.ofMillis(Long.parseLong(pushIntervalString.trim()));
+                if (pushInterval.isZero() || pushInterval.isNegative()) {
+                    problems.add("pushInterval must be positive, was %s".formatted(pushIntervalString));
+                }
+            } catch (NumberFormatException e) {
+                problems.add("Invalid pushInterval '%s'".formatted(pushIntervalString));
+            }
+        }
+
+        SecurityPolicy securityPolicy = null;
+        var securityPolicyString = property(address, "securityPolicy");
+        if (securityPolicyString != null) {
+            securityPolicy = securityPolicy(securityPolicyString.trim());
+            if (securityPolicy == null) {
+                problems.add("Invalid securityPolicy '%s', supported are %s".formatted(securityPolicyString, Arrays.toString(SecurityPolicy.values())));
+            }
+        }
+
+        MessageSecurityMode messageSecurityMode = null;
+        var messageSecurityModeString = property(address, "messageSecurityMode");
+        if (messageSecurityModeString != null) {
+            messageSecurityMode = messageSecurityMode(messageSecurityModeString.trim());
+            if (messageSecurityMode == null) {
+                problems.add("Invalid messageSecurityMode '%s', supported are None, Sign and SignAndEncrypt".formatted(messageSecurityModeString));
+            }
+        }
+        // a secured mode needs a secured policy and vice versa, otherwise no endpoint can match
+        if (securityPolicy != null && messageSecurityMode != null &&
+                (securityPolicy == SecurityPolicy.None) != (messageSecurityMode == MessageSecurityMode.None)) {
+            problems.add("securityPolicy %s cannot be used with messageSecurityMode %s".formatted(securityPolicy, messageSecurityMode));
+        }
+
+        var username = property(address, "username");
+        var password = property(address, "password");
+        if (password != null && username == null) {
+            problems.add("OPC UA password given without username");
+        }
+
+        var encoding = property(address, "encoding");
+        encoding = encoding == null ? ENCODING_JSON : encoding.toLowerCase();
+        if (!SUPPORTED_ENCODINGS.contains(encoding)) {
+            problems.add("Unsupported encoding '%s', supported are %s".formatted(encoding, SUPPORTED_ENCODINGS));
+        }
+
+        Double rateLimit = null;
+        Long rateLimitBurst = null;
+        try {
+            var rate = property(address, "rateLimit");
+            rateLimit = rate != null ? RateLimits.parseRate(rate) : null;
+            var burst = property(address, "rateLimitBurst");
+            rateLimitBurst = burst != null ? RateLimits.parseBurst(burst) : null;
+        } catch (NumberFormatException e) {
+            problems.add("Invalid rate limit: " + e.getMessage());
+        }
+
+        if (!problems.isEmpty()) {
+            return Result.failure(problems);
+        }
+
+        return Result.success(new OpcUaSourceDescriptor(serverUrl, List.copyOf(nodeIds), List.copyOf(nodeIdStrings), browseRoot, browseDepth, pushInterval,
+                username, password, securityPolicy, messageSecurityMode, encoding, rateLimit, rateLimitBurst));
+    }
+
+    /**
+     * Whether the source names exactly one node, in which case payloads keep the single-value format.
+     */
+    public boolean isSingleNode() {
+        return browseRoot == null && nodeIds.size() == 1;
+    }
+
+    @Override
+    public String toString() {
+        // never log the password
+        return "OpcUaSourceDescriptor[serverUrl=%s, nodeIds=%s, browseRoot=%s, browseDepth=%d, pushInterval=%s, username=%s, password=%s, securityPolicy=%s, messageSecurityMode=%s, encoding=%s, rateLimit=%s, rateLimitBurst=%s]"
+                .formatted(serverUrl, nodeIdStrings, browseRoot != null ? browseRoot.toParseableString() : null, browseDepth, pushInterval,
+                        username, password != null ? "****" : null, securityPolicy, messageSecurityMode, encoding, rateLimit, rateLimitBurst);
+    }
+
+    /**
+     * Accepts the policy name, e.g. {@code Basic256Sha256}, or its URI.
+     */
+    private static SecurityPolicy securityPolicy(String value) {
+        return Arrays.stream(SecurityPolicy.values())
+                .filter(policy -> policy.name().equalsIgnoreCase(value) || policy.getUri().equals(value))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static MessageSecurityMode messageSecurityMode(String value) {
+        return Arrays.stream(MessageSecurityMode.values())
+                .filter(mode -> mode != MessageSecurityMode.Invalid && mode.name().equalsIgnoreCase(value))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static List<String> listProperty(DataAddress address, String name) {
+        var value = address.getProperty(name);
+        if (value == null) {
+            value = address.getProperty(EDC_NAMESPACE + name);
+        }
+        if (value instanceof Collection<?> collection) {
+            return listProperty(collection);
+        }
+        if (value == null) {
+            return List.of();
+        }
+        var string = value.toString().trim();
+        if (string.startsWith("[")) {
+            try {
+                return listProperty(MAPPER.readValue(string, List.class));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("%s is not a valid JSON array: %s".formatted(name, e.getOriginalMessage()));
+            }
+        }
+        return Stream.of(NODE_ID_SEPARATOR.split(string)).map(String::trim).filter(v -> !v.isEmpty()).toList();
+    }
+
+    private static List<String> listProperty(Collection<?> collection) {
+        return collection.stream().map(String::valueOf).map(String::trim).filter(v -> !v.isEmpty()).toList();
+    }
+
+    private static String property(DataAddress address, String name) {
+        var value = address.getStringProperty(name);
+        if (value == null || value.isBlank()) {
+            value = address.getStringProperty(EDC_NAMESPACE + name);
+        }
+        return value == null || value.isBlank() ? null : value;
+    }
+}
@@ -1,12 +1,26 @@
 package org.eclipse.edc.opcua.push;
 
-import org.eclipse.edc.spi.types.domain.DataAddress;
+import org.eclipse.edc.opcua.model.OpcUaSourceDescriptor;
 
 public interface OpcUaPushService {
 
-    void startPushing(String transferId, DataAddress opcUaSource, String consumerUrl, String authToken, String method);
+    void startPushing(String transferId, OpcUaSourceDescriptor source, String consumerUrl, String authToken, String method);
 
     void stopPushing(String transferId);
 
+    /**
+     * Stops delivering to the consumer but keeps sampling into a bounded buffer.
+     *
+     * @return false if there is no push task for the transfer
+     */
+    boolean pausePushing(String transferId);
+
+    /**
+     * Continues delivery of a paused push task, starting with the buffered samples.
+     *
+     * @return false if there is no push task for the transfer
+     */
+    boolean resumePushing(String transferId);
+
     boolean isActive(String transferId);
 }
\ No newline at end of file
@@ -1,15 +1,19 @@
-
 package org.eclipse.edc.opcua.push;
 
 import org.eclipse.edc.opcua.client.OpcUaClientService;
+import org.eclipse.edc.opcua.model.OpcUaPayloads;
+import org.eclipse.edc.opcua.model.OpcUaSourceDescriptor;
 import org.eclipse.edc.spi.monitor.Monitor;
-import org.eclipse.edc.spi.types.domain.DataAddress;
 
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -18,8 +22,12 @@ import java.util.concurrent.TimeUnit;
 
 public class OpcUaPushServiceImpl implements OpcUaPushService {
 
-    private static final String EDC_NAMESPACE = "https://w3id.org/edc/v0.0.1/ns/";
-    private final ConcurrentHashMap<String, ScheduledFuture<?>> activePushTasks = new ConcurrentHashMap<>();
+    /**
+     * Samples kept per paused or unreachable transfer; older samples are dropped first.
+     */
+    private static final int MAX_BUFFERED_SAMPLES = 100;
+
+    private final ConcurrentHashMap<String, PushTask> activePushTasks = new ConcurrentHashMap<>();
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(10);
     private final HttpClient httpClient;
 
@@ -35,87 +43,202 @@ public class OpcUaPushServiceImpl implements OpcUaPushService {
     }
 
     @Override
-    public void startPushing(String transferId, DataAddress opcUaSource, String consumerUrl, String authToken, String method) {
+    public void startPushing(String transferId, OpcUaSourceDescriptor source, String consumerUrl, String authToken, String method) {
         if (activePushTasks.containsKey(transferId)) {
             monitor.warning("Push task already active for transfer: " + transferId);
             return;
         }
 
-        String serverUrl = firstNonBlank(
-                opcUaSource.getStringProperty("serverUrl"),
-                opcUaSource.getStringProperty(EDC_NAMESPACE + "serverUrl")
-        );
-        String nodeId = firstNonBlank(
-                opcUaSource.getStringProperty("nodeId"),
-                opcUaSource.getStringProperty(EDC_NAMESPACE + "nodeId")
-        );
-
-        long intervalMs = Long.parseLong(opcUaSource.getStringProperty("pushInterval", "5000"));
+        var intervalMs = source.pushInterval().toMillis();
 
         monitor.info("Starting OPC UA push for transfer " + transferId +
-                " (server: " + serverUrl + ", node: " + nodeId +
+                " (server: " + source.serverUrl() + ", nodes: " + describeNodes(source) +
                 ", interval: " + intervalMs + "ms, target: " + consumerUrl + ")");
 
-        ScheduledFuture<?> task = scheduler.scheduleAtFixedRate(() -> {
-            try {
-                Object value = opcUaClientService.readValue(serverUrl, nodeId);
+        // everything that does not change between ticks is prepared once
+        var consumerUri = URI.create(consumerUrl);
+        var payloadPrefix = source.isSingleNode() ? "{\"nodeId\":\"" + OpcUaPayloads.escape(source.nodeIdStrings().get(0)) + "\",\"value\":\"" : "{\"values\":";
+        var payloadSuffix = "\",\"transferId\":\"" + transferId + "\"}";
 
-                String jsonPayload = String.format(
-                        "{\"nodeId\":\"%s\",\"value\":\"%s\",\"timestamp\":\"%s\",\"transferId\":\"%s\"}",
-                        nodeId, String.valueOf(value), java.time.Instant.now().toString(), transferId
-                );
-
-                // Build standard Java HttpRequest
-                var requestBuilder = HttpRequest.newBuilder()
-                        .uri(URI.create(consumerUrl))
-                        .header("Content-Type", "application/json")
-                        .timeout(Duration.ofSeconds(30));
-
-                if (authToken != null) {
-                    requestBuilder.header("Authorization", "Bearer " + authToken);
-                }
+        var pushTask = new PushTask(transferId, consumerUri, authToken, method);
 
-                HttpRequest request;
-                if ("POST".equalsIgnoreCase(method)) {
-                    request = requestBuilder.POST(HttpRequest.BodyPublishers.ofString(jsonPayload)).build();
-                } else {
-                    request = requestBuilder.PUT(HttpRequest.BodyPublishers.ofString(jsonPayload)).build();
-                }
+        pushTask.future = scheduler.scheduleAtFixedRate(() -> {
+            try {
+                var readings = opcUaClientService.read(source);
+                var values = source.isSingleNode() ?
+                        OpcUaPayloads.escape(OpcUaPayloads.valueString(readings.get(0).value())) + "\"" :
+                        OpcUaPayloads.readingsArray(readings);
 
-                // Send request using standard HttpClient
-                HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+                String jsonPayload = payloadPrefix + values + ",\"timestamp\":\"" + java.time.Instant.now() + payloadSuffix;
 
-                if (response.statusCode() >= 200 && response.statusCode() < 300) {
-                    monitor.debug("Successfully pushed OPC UA data for transfer " + transferId +
-                            " (status: " + response.statusCode() + ")");
-                } else {
-                    monitor.warning("Failed to push OPC UA data for transfer " + transferId +
-                            " (status: " + response.statusCode() + ", body: " + response.body() + ")");
-                }
+                // while paused, keep sampling but hold the payloads back until the transfer is resumed
+                pushTask.offer(jsonPayload);
+                deliver(pushTask);
 
             } catch (Exception e) {
                 monitor.severe("Failed to push OPC UA data for transfer " + transferId, e);
             }
         }, 0, intervalMs, TimeUnit.MILLISECONDS);
 
-        activePushTasks.put(transferId, task);
+        activePushTasks.put(transferId, pushTask);
     }
 
     @Override
     public void stopPushing(String transferId) {
         var task = activePushTasks.remove(transferId);
         if (task != null) {
-            task.cancel(true);
+            task.future.cancel(true);
             monitor.info("Stopped OPC UA push for transfer: " + transferId);
         }
     }
 
+    @Override
+    public boolean pausePushing(String transferId) {
+        var task = activePushTasks.get(transferId);
+        if (task == null) {
+            return false;
+        }
+        task.pause();
+        monitor.info("Paused OPC UA push for transfer: " + transferId);
+        return true;
+    }
+
+    @Override
+    public boolean resumePushing(String transferId) {
+        var task = activePushTasks.get(transferId);
+        if (task == null) {
+            return false;
+        }
+        task.resume();
+        // deliver the samples buffered while paused now, not only with the next sample
+        scheduler.execute(() -> deliver(task));
+        monitor.info("Resumed OPC UA push for transfer: " + transferId);
+        return true;
+    }
+
     @Override
     public boolean isActive(String transferId) {
         return activePushTasks.containsKey(transferId);
     }
 
-    private static String firstNonBlank(String a, String b) {
-        return (a != null && !a.trim().isEmpty()) ? a : b;
+    /**
+     * Sends the samples that are due, in order. If a sample cannot be sent, it and all later ones are kept for the next
+     * attempt.
+     */
+    private void deliver(PushTask task) {
+        synchronized (task.delivery) {
+            var due = task.takeDue();
+            for (var i = 0; i < due.size(); i++) {
+                try {
+                    send(task.transferId, task.consumerUri, task.authToken, task.method, due.get(i));
+                } catch (Exception e) {
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    task.requeue(due.subList(i, due.size()));
+                    monitor.warning("Failed to push OPC UA data for transfer %s, %d samples kept for the next attempt"
+                            .formatted(task.transferId, due.size() - i), e);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void send(String transferId, URI consumerUri, String authToken, String method, String jsonPayload) throws Exception {
+        // Build standard Java HttpRequest
+        var requestBuilder = HttpRequest.newBuilder()
+                .uri(consumerUri)
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30));
+
+        if (authToken != null) {
+            requestBuilder.header("Authorization", "Bearer " + authToken);
+        }
+
+        HttpRequest request;
+        if ("POST".equalsIgnoreCase(method)) {
+            request = requestBuilder.POST(HttpRequest.BodyPublishers.ofString(jsonPayload)).build();
+        } else {
+            request = requestBuilder.PUT(HttpRequest.BodyPublishers.ofString(jsonPayload)).build();
+        }
+
+        // Send request using standard HttpClient
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        if (response.statusCode() >= 200 && response.statusCode() < 300) {
+            monitor.debug("Successfully pushed OPC UA data for transfer " + transferId +
+                    " (status: " + response.statusCode() + ")");
+        } else {
+            monitor.warning("Failed to push OPC UA data for transfer " + transferId +
+                    " (status: " + response.statusCode() + ", body: " + response.body() + ")");
+        }
+    }
+
+    private static String describeNodes(OpcUaSourceDescriptor source) {
+        var nodes = String.join(", ", source.nodeIdStrings());
+        return source.browseRoot() == null ? nodes : nodes + " + browse(" + source.browseRoot().toParseableString() + ")";
+    }
+
+    /**
+     * A scheduled push. Samples are queued and delivered in order; while paused, they are only queued. Deliveries of
+     * the same push are serialized on {@link #delivery}, so that samples are never sent out of order.
+     */
+    private static class PushTask {
+        private final String transferId;
+        private final URI consumerUri;
+        private final String authToken;
+        private final String method;
+        private final Object delivery = new Object();
+        private final Deque<String> buffer = new ArrayDeque<>();
+        private ScheduledFuture<?> future;
+        private boolean paused;
+
+        PushTask(String transferId, URI consumerUri, String authToken, String method) {
+            this.transferId = transferId;
+            this.consumerUri = consumerUri;
+            this.authToken = authToken;
+            this.method = method;
+        }
+
+        synchronized void pause() {
+            paused = true;
+        }
+
+        synchronized void resume() {
+            paused = false;
+        }
+
+        synchronized void offer(String payload) {
+            buffer.addLast(payload);
+            trim();
+        }
+
+        /**
+         * Takes the samples that are due for delivery now, none while paused.
+         */
+        synchronized List<String> takeDue() {
+            if (paused || buffer.isEmpty()) {
+                return List.of();
+            }
+            var due = new ArrayList<>(buffer);
+            buffer.clear();
+            return due;
+        }
+
+        /**
+         * Puts samples that could not be delivered back in front of the queue.
+         */
+        synchronized void requeue(List<String> unsent) {
+            for (var i = unsent.size() - 1; i >= 0; i--) {
+                buffer.addFirst(unsent.get(i));
+            }
+            trim();
+        }
+
+        private void trim() {
+            while (buffer.size() > MAX_BUFFERED_SAMPLES) {
+                buffer.removeFirst();
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package org.eclipse.edc.opcua.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limits EDR data requests with one {@link TokenBucket} per transfer and one per consumer. A request must get a
+ * token from both buckets, and takes none if either is empty; the consumer bucket is shared by all transfers of the
+ * same consumer. Consumer buckets are reference counted by their transfers and dropped with the last one.
+ */
+public class EdrRateLimiter {
+
+    private final RateLimits consumerLimits;
+    private final LongSupplier nanoClock;
+    private final Map<String, Registration> transfers = new ConcurrentHashMap<>();
+    private final Map<String, Consumer> consumers = new ConcurrentHashMap<>();
+
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong rejectedByTransfer = new AtomicLong();
+    private final AtomicLong rejectedByConsumer = new AtomicLong();
+
+    public EdrRateLimiter(RateLimits consumerLimits) {
+        this(consumerLimits, System::nanoTime);
+    }
+
+    EdrRateLimiter(RateLimits consumerLimits, LongSupplier nanoClock) {
+        this.consumerLimits = consumerLimits;
+        this.nanoClock = nanoClock;
+    }
+
+    public void register(String transferId, String consumerId, RateLimits transferLimits) {
+        var transferBucket = transferLimits.isUnlimited() ? null : new TokenBucket(transferLimits, nanoClock);
+        var consumerBucket = consumerId != null && !consumerLimits.isUnlimited() ? retain(consumerId) : null;
+        var previous = transfers.put(transferId, new Registration(consumerId, transferBucket, consumerBucket));
+        if (previous != null) {
+            release(previous);
+        }
+    }
+
+    public void unregister(String transferId) {
+        var registration = transfers.remove(transferId);
+        if (registration != null) {
+            release(registration);
+        }
+    }
+
+    public RateLimitDecision tryAcquire(String transferId) {
+        var registration = transfers.get(transferId);
+        if (registration == null) {
+            allowed.incrementAndGet();
+            return RateLimitDecision.ALLOWED;
+        }
+
+        var transferBucket = registration.transferBucket();
+        var consumerBucket = registration.consumerBucket();
+
+        // check both before taking a token, so that a rejection by one limit does not cost a token of the other
+        var transferWait = transferBucket != null ? transferBucket.availableIn() : 0;
+        var consumerWait = consumerBucket != null ? consumerBucket.availableIn() : 0;
+        if (transferWait > 0 || consumerWait > 0) {
+            return reject(transferWait, consumerWait);
+        }
+
+        transferWait = transferBucket != null ? transferBucket.tryAcquire() : 0;
+        if (transferWait > 0) {
+            return reject(transferWait, 0);
+        }
+        consumerWait = consumerBucket != null ? consumerBucket.tryAcquire() : 0;
+        if (consumerWait > 0) {
+            // another request took the consumer's last token in the meantime
+            if (transferBucket != null) {
+                transferBucket.release();
+            }
+            return reject(0, consumerWait);
+        }
+
+        allowed.incrementAndGet();
+        return RateLimitDecision.ALLOWED;
+    }
+
+    public long getAllowedCount() {
+        return allowed.get();
+    }
+
+    public long getRejectedByTransferCount() {
+        return rejectedByTransfer.get();
+    }
+
+    public long getRejectedByConsumerCount() {
+        return rejectedByConsumer.get();
+    }
+
+    /**
+     * Number of consumers with at least one rate limited transfer.
+     */
+    public int getConsumerCount() {
+        return consumers.size();
+    }
+
+    /**
+     * Fraction of all checked requests that were rejected, a measure of how saturated the limiters are.
+     */
+    public double getSaturation() {
+        var rejected = rejectedByTransfer.get() + rejectedByConsumer.get();
+        var total = rejected + allowed.get();
+        return total == 0 ? 0 : (double) rejected / total;
+    }
+
+    private RateLimitDecision reject(long transferWait, long consumerWait) {
+        if (transferWait > 0) {
+            rejectedByTransfer.incrementAndGet();
+        } else {
+            rejectedByConsumer.incrementAndGet();
+        }
+        return RateLimitDecision.rejected(Math.max(transferWait, consumerWait));
+    }
+
+    /**
+     * Counts one more transfer of the consumer.
+     *
+     * @return the consumer's bucket, created if the consumer had no transfers yet
+     */
+    private TokenBucket retain(String consumerId) {
+        return consumers.compute(consumerId, (id, consumer) -> consumer == null ?
+                new Consumer(new TokenBucket(consumerLimits, nanoClock), 1) :
+                new Consumer(consumer.bucket(), consumer.transfers() + 1)).bucket();
+    }
+
+    /**
+     * Counts one transfer of the consumer less, and drops the consumer's bucket with its last transfer.
+     */
+    private void release(Registration registration) {
+        if (registration.consumerBucket() != null) {
+            consumers.computeIfPresent(registration.consumerId(), (id, consumer) -> consumer.transfers() > 1 ?
+                    new Consumer(consumer.bucket(), consumer.transfers() - 1) : null);
+        }
+    }
+
+    private record Registration(String consumerId, TokenBucket transferBucket, TokenBucket consumerBucket) {
+    }
+
+    private record Consumer(TokenBucket bucket, int transfers) {
+    }
+}
@@ -0,0 +1,17 @@
+package org.eclipse.edc.opcua.ratelimit;
+
+/**
+ * Outcome of a rate limiter check.
+ *
+ * @param allowed           whether the request may proceed
+ * @param retryAfterSeconds if rejected, after how many seconds the caller may retry
+ */
+public record RateLimitDecision(boolean allowed, long retryAfterSeconds) {
+
+    public static final RateLimitDecision ALLOWED = new RateLimitDecision(true, 0);
+
+    public static RateLimitDecision rejected(long retryAfterNanos) {
+        var seconds = Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L);
+        return new RateLimitDecision(false, seconds);
+    }
+}
@@ -0,0 +1,42 @@
+package org.eclipse.edc.opcua.ratelimit;
+
+/**
+ * Sustained rate and burst allowance of a {@link TokenBucket}. A non-positive rate disables limiting.
+ *
+ * @param permitsPerSecond the rate at which the bucket refills
+ * @param burst            the bucket capacity, i.e. how many requests may be made back-to-back
+ */
+public record RateLimits(double permitsPerSecond, long burst) {
+
+    public static final RateLimits UNLIMITED = new RateLimits(0, 0);
+
+    public boolean isUnlimited() {
+        return permitsPerSecond <= 0;
+    }
+
+    /**
+     * Parses a rate in requests per second, where 0 disables limiting.
+     *
+     * @throws NumberFormatException if the value is not a number, or is negative, NaN or infinite
+     */
+    public static double parseRate(String value) {
+        var rate = Double.parseDouble(value.trim());
+        if (!Double.isFinite(rate) || rate < 0) {
+            throw new NumberFormatException("rate must be a finite number of at least 0, was " + value);
+        }
+        return rate;
+    }
+
+    /**
+     * Parses a burst allowance.
+     *
+     * @throws NumberFormatException if the value is not a number or is negative
+     */
+    public static long parseBurst(String value) {
+        var burst = Long.parseLong(value.trim());
+        if (burst < 0) {
+            throw new NumberFormatException("burst must not be negative, was " + value);
+        }
+        return burst;
+    }
+}
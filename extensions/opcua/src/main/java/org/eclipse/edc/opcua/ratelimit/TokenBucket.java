@@ -0,0 +1,87 @@
+package org.eclipse.edc.opcua.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token bucket. The bucket state is an immutable snapshot that is swapped with a CAS, so concurrent callers
+ * never block each other.
+ */
+public class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+    private final AtomicReference<State> state;
+
+    public TokenBucket(RateLimits limits) {
+        this(limits, System::nanoTime);
+    }
+
+    TokenBucket(RateLimits limits, LongSupplier nanoClock) {
+        if (limits.isUnlimited()) {
+            throw new IllegalArgumentException("A token bucket needs a positive rate");
+        }
+        this.permitsPerNano = limits.permitsPerSecond() / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = Math.max(1, limits.burst());
+        this.nanoClock = nanoClock;
+        this.state = new AtomicReference<>(new State(capacity, nanoClock.getAsLong()));
+    }
+
+    /**
+     * Tries to take one token from the bucket.
+     *
+     * @return 0 if a token was taken, otherwise the number of nanoseconds until the next token becomes available
+     */
+    public long tryAcquire() {
+        while (true) {
+            var now = nanoClock.getAsLong();
+            var current = state.get();
+            var tokens = tokens(current, now);
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / permitsPerNano);
+            }
+            if (state.compareAndSet(current, new State(tokens - 1, now))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Tells how long until a token is available, without taking it.
+     *
+     * @return 0 if a token is available now, otherwise the number of nanoseconds until the next token becomes available
+     */
+    public long availableIn() {
+        var tokens = tokens(state.get(), nanoClock.getAsLong());
+        return tokens < 1 ? (long) Math.ceil((1 - tokens) / permitsPerNano) : 0;
+    }
+
+    /**
+     * Puts back a token taken by {@link #tryAcquire()} for a request that was not made after all.
+     */
+    public void release() {
+        while (true) {
+            var now = nanoClock.getAsLong();
+            var current = state.get();
+            if (state.compareAndSet(current, new State(Math.min(capacity, tokens(current, now) + 1), now))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Whether the bucket has refilled completely, in which case it is indistinguishable from a new one.
+     */
+    public boolean isFull() {
+        return tokens(state.get(), nanoClock.getAsLong()) >= capacity;
+    }
+
+    private double tokens(State current, long now) {
+        return Math.min(capacity, current.tokens() + (now - current.timestamp()) * permitsPerNano);
+    }
+
+    private record State(double tokens, long timestamp) {
+    }
+}
@@ -0,0 +1,77 @@
+package org.eclipse.edc.opcua.flow;
+
+import org.eclipse.edc.connector.controlplane.transfer.spi.types.TransferProcess;
+import org.eclipse.edc.opcua.client.OpcUaClientService;
+import org.eclipse.edc.opcua.edr.InMemoryEdrService;
+import org.eclipse.edc.opcua.model.OpcUaSourceDescriptor;
+import org.eclipse.edc.opcua.push.OpcUaPushService;
+import org.eclipse.edc.opcua.ratelimit.EdrRateLimiter;
+import org.eclipse.edc.opcua.ratelimit.RateLimits;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.response.StatusResult;
+import org.eclipse.edc.spi.types.domain.DataAddress;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OpcUaDataFlowControllerTest {
+
+    private static final String SERVER = "opc.tcp://server:4840";
+
+    private final OpcUaClientService clientService = mock();
+    private final OpcUaDataFlowController controller = new OpcUaDataFlowController("http://localhost/api/edr", new InMemoryEdrService(),
+            mock(OpcUaPushService.class), clientService, new EdrRateLimiter(RateLimits.UNLIMITED), RateLimits.UNLIMITED, mock(Monitor.class));
+
+    @BeforeEach
+    void setup() {
+        when(clientService.warmUp(any())).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    void startAll_warmsUpOncePerEndpointAndBrowseRoot() {
+        var results = controller.startAll(List.of(
+                transferProcess("transfer-1", source("ns=2;s=A")),
+                transferProcess("transfer-2", source("ns=2;s=B")),
+                transferProcess("transfer-3", source("ns=2;s=C").property("browseRoot", "ns=2;s=Folder"))
+        ), tp -> null);
+
+        assertThat(results.values()).allMatch(StatusResult::succeeded);
+        var warmedUp = ArgumentCaptor.forClass(OpcUaSourceDescriptor.class);
+        verify(clientService, times(2)).warmUp(warmedUp.capture());
+        assertThat(warmedUp.getAllValues().get(0).browseRoot()).isNull();
+        assertThat(warmedUp.getAllValues().get(1).browseRoot()).isNotNull();
+    }
+
+    @Test
+    void startAll_warmsUpEachSecurityAndUserOfServer() {
+        controller.startAll(List.of(
+                transferProcess("transfer-1", source("ns=2;s=A")),
+                transferProcess("transfer-2", source("ns=2;s=B").property("username", "operator").property("password", "secret")),
+                transferProcess("transfer-3", source("ns=2;s=C").property("securityPolicy", "Basic256Sha256").property("messageSecurityMode", "SignAndEncrypt"))
+        ), tp -> null);
+
+        verify(clientService, times(3)).warmUp(any());
+    }
+
+    private static DataAddress.Builder source(String nodeId) {
+        return DataAddress.Builder.newInstance().type("opcua").property("serverUrl", SERVER).property("nodeId", nodeId);
+    }
+
+    private static TransferProcess transferProcess(String id, DataAddress.Builder source) {
+        return TransferProcess.Builder.newInstance()
+                .id(id)
+                .transferType("HttpData-PULL")
+                .contentDataAddress(source.build())
+                .build();
+    }
+}
@@ -0,0 +1,34 @@
+package org.eclipse.edc.opcua.model;
+
+import org.eclipse.edc.spi.types.domain.DataAddress;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OpcUaSourceDescriptorTest {
+
+    @Test
+    void toString_masksPassword() {
+        var source = OpcUaSourceDescriptor.parse(address()
+                .property("username", "operator")
+                .property("password", "secret")
+                .build()).getContent();
+
+        assertThat(source.toString()).contains("username=operator", "password=****").doesNotContain("secret");
+    }
+
+    @Test
+    void parse_rejectsNonFiniteRateLimit() {
+        var result = OpcUaSourceDescriptor.parse(address().property("rateLimit", "NaN").build());
+
+        assertThat(result.failed()).isTrue();
+        assertThat(result.getFailureDetail()).contains("Invalid rate limit");
+    }
+
+    private static DataAddress.Builder address() {
+        return DataAddress.Builder.newInstance()
+                .type("opcua")
+                .property("serverUrl", "opc.tcp://server:4840")
+                .property("nodeId", "ns=2;s=A");
+    }
+}
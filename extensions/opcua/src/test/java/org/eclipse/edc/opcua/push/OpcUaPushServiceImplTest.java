@@ -0,0 +1,83 @@
+package org.eclipse.edc.opcua.push;
+
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.edc.opcua.client.OpcUaClientService;
+import org.eclipse.edc.opcua.model.OpcUaReading;
+import org.eclipse.edc.opcua.model.OpcUaSourceDescriptor;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.types.domain.DataAddress;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OpcUaPushServiceImplTest {
+
+    private final OpcUaClientService clientService = mock();
+    private final OpcUaPushServiceImpl pushService = new OpcUaPushServiceImpl(clientService, mock(Monitor.class));
+    private final BlockingQueue<String> attempts = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> delivered = new LinkedBlockingQueue<>();
+    private final AtomicBoolean available = new AtomicBoolean();
+    private HttpServer consumer;
+
+    @BeforeEach
+    void setup() throws Exception {
+        consumer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        consumer.createContext("/", exchange -> {
+            var body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            attempts.add(body);
+            if (available.get()) {
+                delivered.add(body);
+                exchange.sendResponseHeaders(204, -1);
+            }
+            // otherwise the connection is dropped without a response, so that sending fails
+            exchange.close();
+        });
+        consumer.start();
+        when(clientService.read(any(OpcUaSourceDescriptor.class))).thenReturn(List.of(new OpcUaReading(NodeId.parse("ns=2;s=A"), 42, null)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pushService.stopPushing("transfer");
+        consumer.stop(0);
+    }
+
+    @Test
+    void failedSample_isKeptAndDeliveredOnResume() throws IOException, InterruptedException {
+        pushService.startPushing("transfer", source(), "http://localhost:" + consumer.getAddress().getPort() + "/", null, "POST");
+        var failed = attempts.poll(10, TimeUnit.SECONDS);
+        assertThat(failed).contains("\"value\":\"42\"");
+
+        pushService.pausePushing("transfer");
+        available.set(true);
+        pushService.resumePushing("transfer");
+
+        // the next tick is an hour away, so the sample can only arrive through the flush on resume
+        assertThat(delivered.poll(10, TimeUnit.SECONDS)).isEqualTo(failed);
+    }
+
+    private static OpcUaSourceDescriptor source() {
+        return OpcUaSourceDescriptor.parse(DataAddress.Builder.newInstance()
+                .type("opcua")
+                .property("serverUrl", "opc.tcp://server:4840")
+                .property("nodeId", "ns=2;s=A")
+                .property("pushInterval", "3600000")
+                .build()).getContent();
+    }
+}
@@ -0,0 +1,117 @@
+package org.eclipse.edc.opcua.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EdrRateLimiterTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000 * MILLI);
+    private final AtomicInteger readsUntilHook = new AtomicInteger(-1);
+    private Runnable hook = () -> { };
+    // a clock that can run an action right before a given read, to interleave another request deterministically
+    private final EdrRateLimiter limiter = new EdrRateLimiter(new RateLimits(10, 2), () -> {
+        if (readsUntilHook.getAndDecrement() == 0) {
+            hook.run();
+        }
+        return now.get();
+    });
+
+    @Test
+    void unknownTransfer_isAllowed() {
+        assertThat(limiter.tryAcquire("unknown").allowed()).isTrue();
+    }
+
+    @Test
+    void transferLimit_rejectsWithRetryAfter() {
+        limiter.register("transfer", "consumer", new RateLimits(0.5, 1));
+
+        assertThat(limiter.tryAcquire("transfer").allowed()).isTrue();
+        var rejected = limiter.tryAcquire("transfer");
+
+        assertThat(rejected.allowed()).isFalse();
+        assertThat(rejected.retryAfterSeconds()).isEqualTo(2);
+        assertThat(limiter.getRejectedByTransferCount()).isEqualTo(1);
+    }
+
+    @Test
+    void transferLimit_rejectionDoesNotTakeConsumerToken() {
+        limiter.register("transfer-1", "consumer", new RateLimits(1, 1));
+        limiter.register("transfer-2", "consumer", new RateLimits(1, 5));
+
+        assertThat(limiter.tryAcquire("transfer-1").allowed()).isTrue();
+        assertThat(limiter.tryAcquire("transfer-1").allowed()).isFalse();
+
+        // the consumer's second token is still there for the other transfer
+        assertThat(limiter.tryAcquire("transfer-2").allowed()).isTrue();
+        assertThat(limiter.tryAcquire("transfer-2").allowed()).isFalse();
+        assertThat(limiter.getRejectedByConsumerCount()).isEqualTo(1);
+    }
+
+    @Test
+    void consumerLimit_isSharedByTransfers_andRejectionDoesNotTakeTransferToken() {
+        limiter.register("transfer-1", "consumer", new RateLimits(1, 2));
+        limiter.register("transfer-2", "consumer", new RateLimits(1, 2));
+
+        assertThat(limiter.tryAcquire("transfer-2").allowed()).isTrue();
+        assertThat(limiter.tryAcquire("transfer-2").allowed()).isTrue();
+        assertThat(limiter.tryAcquire("transfer-1").allowed()).isFalse();
+        assertThat(limiter.tryAcquire("transfer-1").allowed()).isFalse();
+
+        // the consumer bucket refills two tokens, the transfer bucket only a fifth of one
+        now.addAndGet(200 * MILLI);
+        assertThat(limiter.tryAcquire("transfer-1").allowed()).isTrue();
+        assertThat(limiter.tryAcquire("transfer-1").allowed()).isTrue();
+        assertThat(limiter.getRejectedByConsumerCount()).isEqualTo(2);
+    }
+
+    @Test
+    void consumerTakenConcurrently_releasesTransferToken() {
+        limiter.register("transfer-1", "consumer", new RateLimits(0.001, 1));
+        limiter.register("transfer-2", "consumer", new RateLimits(1, 2));
+        assertThat(limiter.tryAcquire("transfer-2").allowed()).isTrue();
+
+        // both limits allow the request when checked, but the consumer's last token is taken by another request
+        // between taking the transfer token (third clock read) and the consumer token (fourth clock read)
+        hook = () -> assertThat(limiter.tryAcquire("transfer-2").allowed()).isTrue();
+        readsUntilHook.set(3);
+        var decision = limiter.tryAcquire("transfer-1");
+
+        assertThat(decision.allowed()).isFalse();
+        assertThat(limiter.getRejectedByConsumerCount()).isEqualTo(1);
+        // the transfer token was put back, the transfer bucket itself would take 1000 s to refill
+        now.addAndGet(200 * MILLI);
+        assertThat(limiter.tryAcquire("transfer-1").allowed()).isTrue();
+    }
+
+    @Test
+    void consumerBucket_isDroppedWithLastTransfer() {
+        limiter.register("transfer-1", "consumer", RateLimits.UNLIMITED);
+        limiter.register("transfer-2", "consumer", RateLimits.UNLIMITED);
+        limiter.register("transfer-3", "other", RateLimits.UNLIMITED);
+        assertThat(limiter.getConsumerCount()).isEqualTo(2);
+
+        limiter.unregister("transfer-1");
+        assertThat(limiter.getConsumerCount()).isEqualTo(2);
+        limiter.unregister("transfer-2");
+        assertThat(limiter.getConsumerCount()).isEqualTo(1);
+        limiter.unregister("transfer-3");
+        assertThat(limiter.getConsumerCount()).isZero();
+    }
+
+    @Test
+    void registeringTransferAgain_countsItOnce() {
+        limiter.register("transfer", "consumer", RateLimits.UNLIMITED);
+        limiter.register("transfer", "consumer", RateLimits.UNLIMITED);
+
+        limiter.unregister("transfer");
+
+        assertThat(limiter.getConsumerCount()).isZero();
+    }
+}
@@ -0,0 +1,28 @@
+package org.eclipse.edc.opcua.ratelimit;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitsTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = { "0", "0.5", " 10 " })
+    void parseRate_acceptsFiniteNonNegativeRates(String value) {
+        assertThat(RateLimits.parseRate(value)).isEqualTo(Double.parseDouble(value.trim()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "NaN", "Infinity", "-Infinity", "-1", "fast" })
+    void parseRate_rejectsOtherValues(String value) {
+        assertThatThrownBy(() -> RateLimits.parseRate(value)).isInstanceOf(NumberFormatException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "-1", "1.5" })
+    void parseBurst_rejectsNegativeAndFractionalValues(String value) {
+        assertThatThrownBy(() -> RateLimits.parseBurst(value)).isInstanceOf(NumberFormatException.class);
+    }
+}
@@ -0,0 +1,78 @@
+package org.eclipse.edc.opcua.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong(1_000 * MILLI);
+    // 10 permits per second, so one token every 100 ms
+    private final TokenBucket bucket = new TokenBucket(new RateLimits(10, 3), now::get);
+
+    @Test
+    void tryAcquire_allowsBurstThenReportsWait() {
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isZero();
+
+        assertThat(bucket.tryAcquire()).isEqualTo(100 * MILLI);
+        assertThat(bucket.isFull()).isFalse();
+    }
+
+    @Test
+    void tokens_refillAtConfiguredRate() {
+        drain();
+
+        now.addAndGet(60 * MILLI);
+        assertThat(bucket.availableIn()).isEqualTo(40 * MILLI);
+        assertThat(bucket.tryAcquire()).isEqualTo(40 * MILLI);
+
+        now.addAndGet(40 * MILLI);
+        assertThat(bucket.tryAcquire()).isZero();
+        assertThat(bucket.tryAcquire()).isEqualTo(100 * MILLI);
+    }
+
+    @Test
+    void tokens_refillUpToCapacityOnly() {
+        drain();
+
+        now.addAndGet(10_000 * MILLI);
+
+        assertThat(bucket.isFull()).isTrue();
+        drain();
+    }
+
+    @Test
+    void release_returnsTokenWithoutExceedingCapacity() {
+        drain();
+
+        bucket.release();
+        assertThat(bucket.tryAcquire()).isZero();
+
+        now.addAndGet(10_000 * MILLI);
+        bucket.release();
+        drain();
+    }
+
+    @Test
+    void unlimitedRate_isRejected() {
+        assertThatThrownBy(() -> new TokenBucket(RateLimits.UNLIMITED)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Takes the three tokens of a full bucket and checks that no fourth one is available.
+     */
+    private void drain() {
+        for (var i = 0; i < 3; i++) {
+            assertThat(bucket.tryAcquire()).isZero();
+        }
+        assertThat(bucket.tryAcquire()).isPositive();
+    }
+}
@@ -32,6 +32,7 @@ include(":extensions:superuser-seed")
 include(":extensions:opcua")
 //include(":tests:performance")
 include(":tests:end2end")
+include(":tests:benchmarks")
 
 // launcher modules
 include(":launchers:identity-hub")
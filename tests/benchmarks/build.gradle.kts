@@ -0,0 +1,54 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+plugins {
+    `java-library`
+}
+
+dependencies {
+    implementation(project(":extensions:dcp-impl")) {
+        // the benchmarks never talk to an STS
+        exclude(group = "org.eclipse.edc", module = "identity-trust-sts-remote-client")
+    }
+    implementation(libs.edc.spi.identity.trust)
+    implementation(libs.edc.spi.catalog)
+    implementation(project(":extensions:opcua")) {
+        // the benchmarks never serve the EDR API
+        exclude(group = "org.eclipse.edc", module = "jetty-core")
+    }
+    implementation(libs.milo.sdk.client)
+    implementation(libs.edc.spi.transfer)
+
+    implementation(libs.jmh.core)
+    annotationProcessor(libs.jmh.generator.annprocess)
+}
+
+// runs the benchmarks, e.g. ./gradlew :tests:benchmarks:jmh -Pjmh.include=PolicyFunctionBenchmark
+// results are written as JSON, so that runs can be compared with each other
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks"
+    dependsOn(tasks.named("classes"))
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+
+    val resultFile = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+    doFirst { resultFile.parentFile.mkdirs() }
+    args = listOfNotNull(
+        project.findProperty("jmh.include")?.toString(),
+        "-prof", "gc",
+        "-rf", "json",
+        "-rff", resultFile.absolutePath
+    )
+}
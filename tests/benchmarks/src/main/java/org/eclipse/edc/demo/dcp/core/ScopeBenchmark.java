@@ -0,0 +1,89 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.core;
+
+import org.eclipse.edc.policy.context.request.spi.RequestCatalogPolicyContext;
+import org.eclipse.edc.policy.model.Operator;
+import org.eclipse.edc.policy.model.Policy;
+import org.eclipse.edc.spi.iam.RequestContext;
+import org.eclipse.edc.spi.iam.RequestScope;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the scope computation that runs on every outgoing DCP request: the default scope mapping and the scope
+ * extraction for {@code DataAccess.*} constraints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScopeBenchmark {
+
+    private static final int CONTENDED_THREADS = 8;
+
+    private DefaultScopeMappingFunction scopeMappingFunction;
+    private DataAccessCredentialScopeExtractor scopeExtractor;
+    private Policy policy;
+    private RequestContext requestContext;
+
+    @Setup
+    public void setup() {
+        scopeMappingFunction = new DefaultScopeMappingFunction(Set.of("org.eclipse.edc.vc.type:MembershipCredential:read"));
+        scopeExtractor = new DataAccessCredentialScopeExtractor();
+        policy = Policy.Builder.newInstance().build();
+        requestContext = RequestContext.Builder.newInstance().build();
+    }
+
+    @Benchmark
+    public Boolean defaultScopeMapping() {
+        return scopeMappingFunction.apply(policy, newContext());
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public Boolean defaultScopeMappingContended() {
+        return scopeMappingFunction.apply(policy, newContext());
+    }
+
+    @Benchmark
+    public Set<String> dataAccessScopeExtraction() {
+        return scopeExtractor.extractScopes("DataAccess.level", Operator.EQ, "processing", newContext());
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public Set<String> dataAccessScopeExtractionContended() {
+        return scopeExtractor.extractScopes("DataAccess.level", Operator.EQ, "processing", newContext());
+    }
+
+    private RequestCatalogPolicyContext newContext() {
+        return new RequestCatalogPolicyContext(requestContext, RequestScope.Builder.newInstance());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.policy;
+
+import org.eclipse.edc.connector.controlplane.catalog.spi.policy.CatalogPolicyContext;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.CredentialSubject;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.Issuer;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.VerifiableCredential;
+import org.eclipse.edc.participant.spi.ParticipantAgent;
+import org.eclipse.edc.policy.model.Operator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates the MVD policy functions against synthetic participant agents holding a growing number of credentials.
+ * Every invocation uses a fresh {@link ParticipantAgent}, like every request does, so the credential index is built
+ * once per invocation. The matching credentials are placed last, so that scans have to walk the whole list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolicyFunctionBenchmark {
+
+    private static final int CONTENDED_THREADS = 8;
+    private static final String PARTICIPANT_ID = "did:web:consumer";
+
+    @Param({ "1", "10", "100", "1000", "10000" })
+    private int credentialCount;
+
+    @Param({ "0", "10000" })
+    private int decisionCacheSize;
+
+    private Map<String, Object> claims;
+    private MembershipCredentialEvaluationFunction<CatalogPolicyContext> membershipFunction;
+    private DataAccessLevelFunction<CatalogPolicyContext> dataAccessLevelFunction;
+
+    @Setup
+    public void setup() {
+        var credentials = new ArrayList<VerifiableCredential>(credentialCount);
+        for (var i = 0; i < credentialCount - 2; i++) {
+            credentials.add(credential("FillerCredential", "filler-" + i, Map.of("value", i)));
+        }
+        credentials.add(credential("MembershipCredential", "membership", Map.of("membership", Map.of("since", "2023-01-01T00:00:00Z"))));
+        credentials.add(credential("DataProcessorCredential", "processor", Map.of("level", "processing", "contractVersion", "1.0.0")));
+        // with a single credential, only the data processor credential is kept
+        claims = Map.of("vc", List.copyOf(credentials.subList(credentials.size() - credentialCount, credentials.size())));
+
+        var credentialIndexCache = new CredentialIndexCache();
+        var decisionCache = new PolicyDecisionCache(decisionCacheSize, Duration.ofMinutes(5), Clock.systemUTC());
+        membershipFunction = MembershipCredentialEvaluationFunction.create(credentialIndexCache, decisionCache);
+        dataAccessLevelFunction = DataAccessLevelFunction.create(credentialIndexCache, decisionCache);
+    }
+
+    @Benchmark
+    public boolean membership() {
+        return membershipFunction.evaluate(Operator.EQ, "active", null, newContext());
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public boolean membershipContended() {
+        return membershipFunction.evaluate(Operator.EQ, "active", null, newContext());
+    }
+
+    @Benchmark
+    public boolean dataAccessLevel() {
+        return dataAccessLevelFunction.evaluate(Operator.EQ, "processing", null, newContext());
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public boolean dataAccessLevelContended() {
+        return dataAccessLevelFunction.evaluate(Operator.EQ, "processing", null, newContext());
+    }
+
+    private CatalogPolicyContext newContext() {
+        return new CatalogPolicyContext(new ParticipantAgent(PARTICIPANT_ID, claims, Map.of()));
+    }
+
+    private static VerifiableCredential credential(String type, String id, Map<String, Object> subjectClaims) {
+        return VerifiableCredential.Builder.newInstance()
+                .id(id)
+                .type("VerifiableCredential")
+                .type("https://w3id.org/mvd/credentials/" + type)
+                .issuer(new Issuer("did:web:dataspace-issuer"))
+                .issuanceDate(Instant.parse("2024-01-01T00:00:00Z"))
+                .expirationDate(Instant.now().plus(Duration.ofDays(365)))
+                .credentialSubject(CredentialSubject.Builder.newInstance()
+                        .id(PARTICIPANT_ID)
+                        .claims(subjectClaims)
+                        .build())
+                .build();
+    }
+}
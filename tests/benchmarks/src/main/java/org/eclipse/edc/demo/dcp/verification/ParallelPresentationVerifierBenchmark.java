@@ -0,0 +1,153 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.demo.dcp.verification;
+
+import org.eclipse.edc.iam.identitytrust.spi.verification.CredentialVerifier;
+import org.eclipse.edc.iam.identitytrust.spi.verification.VerifierContext;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.CredentialFormat;
+import org.eclipse.edc.iam.verifiablecredentials.spi.model.VerifiablePresentationContainer;
+import org.eclipse.edc.spi.result.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares verifying the credentials of a presentation one after the other, as the upstream verifier does, with the
+ * {@link ParallelPresentationVerifier}. Each credential carries an ES256 signature that is checked against a fixed
+ * key, the part of a credential verification that dominates its cost. DID resolution is left out, so that the
+ * measurement does not depend on the network. The verifiers and the pool are created once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelPresentationVerifierBenchmark {
+
+    private static final String AUDIENCE = "did:web:provider";
+    private static final String PRESENTATION_PREFIX = "vp:";
+
+    @Param({ "10", "100", "1000" })
+    private int credentialCount;
+
+    // 0 verifies the credentials serially
+    @Param({ "0", "2", "4", "8" })
+    private int parallelism;
+
+    private VerifiablePresentationContainer presentation;
+    private SignatureVerifier signatureVerifier;
+    private VerifierContext serialContext;
+    private ParallelPresentationVerifier parallelVerifier;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws GeneralSecurityException {
+        var generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        var keyPair = generator.generateKeyPair();
+
+        var encoder = Base64.getUrlEncoder().withoutPadding();
+        var credentials = new ArrayList<String>(credentialCount);
+        for (var i = 0; i < credentialCount; i++) {
+            var payload = "{\"id\":\"credential-%d\",\"issuer\":\"did:web:dataspace-issuer\",\"subject\":\"did:web:consumer\"}".formatted(i)
+                    .getBytes(StandardCharsets.UTF_8);
+            var signer = Signature.getInstance("SHA256withECDSA");
+            signer.initSign(keyPair.getPrivate());
+            signer.update(payload);
+            credentials.add(encoder.encodeToString(payload) + "." + encoder.encodeToString(signer.sign()));
+        }
+        presentation = new VerifiablePresentationContainer(PRESENTATION_PREFIX + String.join(",", credentials), CredentialFormat.VC1_0_JWT, null);
+
+        signatureVerifier = new SignatureVerifier(keyPair.getPublic());
+        serialContext = VerifierContext.Builder.newInstance().verifier(signatureVerifier).audience(AUDIENCE).build();
+        if (parallelism > 0) {
+            pool = new ForkJoinPool(parallelism);
+            parallelVerifier = new ParallelPresentationVerifier(AUDIENCE, pool, signatureVerifier);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public Result<Void> verifyPresentation() {
+        var result = parallelism > 0 ? parallelVerifier.verifyPresentation(presentation) : serialContext.verify(presentation.rawVp());
+        if (result.failed()) {
+            throw new IllegalStateException(result.getFailureDetail());
+        }
+        return result;
+    }
+
+    /**
+     * Handles presentations of the form {@code vp:credential,credential,...}, where every credential is a base64url
+     * encoded payload and its signature, separated by a dot.
+     */
+    private record SignatureVerifier(PublicKey key) implements CredentialVerifier {
+
+        @Override
+        public boolean canHandle(String rawInput) {
+            return true;
+        }
+
+        @Override
+        public Result<Void> verify(String rawInput, VerifierContext context) {
+            if (rawInput.startsWith(PRESENTATION_PREFIX)) {
+                for (var credential : List.of(rawInput.substring(PRESENTATION_PREFIX.length()).split(","))) {
+                    var result = context.verify(credential);
+                    if (result.failed()) {
+                        return result;
+                    }
+                }
+                return Result.success();
+            }
+            var separator = rawInput.indexOf('.');
+            var decoder = Base64.getUrlDecoder();
+            try {
+                var signature = Signature.getInstance("SHA256withECDSA");
+                signature.initVerify(key);
+                signature.update(decoder.decode(rawInput.substring(0, separator)));
+                return signature.verify(decoder.decode(rawInput.substring(separator + 1))) ? Result.success() : Result.failure("Invalid signature");
+            } catch (GeneralSecurityException e) {
+                return Result.failure(e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *  Copyright (c) 2024 Metaform Systems, Inc.
+ *
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Apache License, Version 2.0 which is available at
+ *  https://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  SPDX-License-Identifier: Apache-2.0
+ *
+ *  Contributors:
+ *       Metaform Systems, Inc. - initial API and implementation
+ *
+ */
+
+package org.eclipse.edc.opcua.flow;
+
+import org.eclipse.edc.connector.controlplane.transfer.spi.types.TransferProcess;
+import org.eclipse.edc.opcua.client.OpcUaClientService;
+import org.eclipse.edc.opcua.edr.InMemoryEdrService;
+import org.eclipse.edc.opcua.model.OpcUaReading;
+import org.eclipse.edc.opcua.model.OpcUaSourceDescriptor;
+import org.eclipse.edc.opcua.push.OpcUaPushService;
+import org.eclipse.edc.opcua.ratelimit.EdrRateLimiter;
+import org.eclipse.edc.opcua.ratelimit.RateLimits;
+import org.eclipse.edc.spi.monitor.Monitor;
+import org.eclipse.edc.spi.types.domain.DataAddress;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Measures how long it takes to start and terminate a burst of pull transfers, one by one and as a batch. The OPC UA
+ * client is stubbed: a warm-up burns {@code warmUpCost} JMH CPU tokens, standing in for scheduling the session lookup
+ * and the node resolution of the real client. One by one, every transfer warms up; the batch warms up once per server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpcUaTransferStartBenchmark {
+
+    private static final int NUM_TRANSFERS = 10_000;
+    private static final int NUM_SERVERS = 20;
+
+    @Param({ "0", "10000" })
+    private long warmUpCost;
+
+    private OpcUaDataFlowController controller;
+    private List<TransferProcess> transferProcesses;
+
+    @Setup
+    public void setup() {
+        var monitor = new Monitor() {
+        };
+        controller = new OpcUaDataFlowController("http://localhost/api/edr", new InMemoryEdrService(), new NoopPushService(),
+                new StubClientService(warmUpCost), new EdrRateLimiter(RateLimits.UNLIMITED), RateLimits.UNLIMITED, monitor);
+        transferProcesses = IntStream.range(0, NUM_TRANSFERS).mapToObj(OpcUaTransferStartBenchmark::transferProcess).toList();
+    }
+
+    @Benchmark
+    public void startAndTerminateOneByOne() {
+        transferProcesses.forEach(tp -> controller.start(tp, null));
+        transferProcesses.forEach(controller::terminate);
+    }
+
+    @Benchmark
+    public void startAndTerminateBatch() {
+        controller.startAll(transferProcesses, tp -> null);
+        controller.terminateAll(transferProcesses);
+    }
+
+    private static TransferProcess transferProcess(int i) {
+        return TransferProcess.Builder.newInstance()
+                .id("transfer-" + i)
+                .transferType("HttpData-PULL")
+                .contentDataAddress(DataAddress.Builder.newInstance()
+                        .type("opcua")
+                        .property("serverUrl", "opc.tcp://server-" + (i % NUM_SERVERS) + ":4840")
+                        .property("nodeId", "ns=2;s=Machine" + i + ".Temperature")
+                        .build())
+                .build();
+    }
+
+    private record StubClientService(long warmUpCost) implements OpcUaClientService {
+
+        @Override
+        public List<OpcUaReading> readAll(String endpoint, List<NodeId> nodeIds) {
+            return List.of();
+        }
+
+        @Override
+        public List<NodeId> browseVariables(String endpoint, NodeId root, int maxDepth) {
+            return List.of();
+        }
+
+        @Override
+        public List<OpcUaReading> read(OpcUaSourceDescriptor source) {
+            return List.of();
+        }
+
+        @Override
+        public CompletableFuture<Void> warmUp(OpcUaSourceDescriptor source) {
+            Blackhole.consumeCPU(warmUpCost);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private static class NoopPushService implements OpcUaPushService {
+
+        @Override
+        public void startPushing(String transferId, OpcUaSourceDescriptor source, String consumerUrl, String authToken, String method) {
+        }
+
+        @Override
+        public void stopPushing(String transferId) {
+        }
+
+        @Override
+        public boolean pausePushing(String transferId) {
+            return false;
+        }
+
+        @Override
+        public boolean resumePushing(String transferId) {
+            return false;
+        }
+
+        @Override
+        public boolean isActive(String transferId) {
+            return false;
+        }
+    }
+}